@@ -0,0 +1,120 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.SpringApplication;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Boots the application once per trial on a random port against a private in-memory H2 database
+ * and seeds it with {@code catalogSize} beers using plain JDBC batches.
+ */
+@State(Scope.Benchmark)
+@Slf4j
+public class BeerCatalogState {
+
+    public static final int PAGE_SIZE = 20;
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final BeerStyleEnum[] STYLES = BeerStyleEnum.values();
+
+    @Param({"10000", "1000000"})
+    public int catalogSize;
+
+    /**
+     * The second level and query cache are off by default so the benchmarks measure the queries themselves;
+     * run with {@code -p secondLevelCache=true,false} to compare.
+     */
+    @Param({"false"})
+    public boolean secondLevelCache;
+
+    public ConfigurableApplicationContext context;
+    public BeerRepository beerRepository;
+    public URI baseUri;
+    public int lastPage;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(SpringApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:beer-benchmark;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                // repeated identical requests would only measure cache hits, 304s and 429s
+                "beer.response-cache.enabled=false",
+                "beer.web.fragment-cache.enabled=false",
+                "beer.etag.enabled=false",
+                "beer.cost-guard.rate-limit.enabled=false",
+                "logging.level.root=WARN",
+                "management.tracing.sampling.probability=0.0")
+            .properties(additionalProperties().toArray(String[]::new))
+            .run();
+        beerRepository = context.getBean(BeerRepository.class);
+        baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+
+        seed(context.getBean(JdbcTemplate.class), catalogSize - beerRepository.count());
+        lastPage = (int) (beerRepository.count() / PAGE_SIZE) - 1;
+        log.warn("Benchmark catalog ready with {} beers", beerRepository.count());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * Application properties of subclassed states, e.g. the threading mode.
+     */
+    protected List<String> additionalProperties() {
+        return List.of();
+    }
+
+    public String upcOf(int index) {
+        return "2%012d".formatted(index);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate, long rows) {
+        SplittableRandom random = new SplittableRandom(42);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            BeerStyleEnum style = STYLES[i % STYLES.length];
+            batch.add(new Object[]{
+                UUID.randomUUID().toString(),
+                0L,
+                "Benchmark " + style + " " + i,
+                style.ordinal(),
+                upcOf(i),
+                random.nextInt(5000),
+                BigDecimal.valueOf(random.nextInt(10000), 2),
+                now,
+                now
+            });
+            if (batch.size() == SEED_BATCH_SIZE) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        insert(jdbcTemplate, batch);
+    }
+
+    private void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("""
+            insert into beer (id, version, beer_name, beer_style, upc, quantity_on_hand, price, created_date, last_modified_date)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)""", batch);
+    }
+}
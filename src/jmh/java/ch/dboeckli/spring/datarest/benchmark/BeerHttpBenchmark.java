@@ -0,0 +1,67 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end rendering through the embedded Tomcat: HAL/JSON of the Spring Data REST collection resources
+ * and the Thymeleaf render of {@code BeerWebController.listBeers}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerHttpBenchmark {
+
+    @State(Scope.Thread)
+    public static class ClientState {
+        HttpClient client;
+
+        @Setup(Level.Trial)
+        public void createClient() {
+            client = HttpClient.newHttpClient();
+        }
+
+        @TearDown(Level.Trial)
+        public void closeClient() {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] halFirstPage(BeerCatalogState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer?page=0&size=" + BeerCatalogState.PAGE_SIZE, "application/hal+json");
+    }
+
+    @Benchmark
+    public byte[] halLastPage(BeerCatalogState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer?page=" + state.lastPage + "&size=" + BeerCatalogState.PAGE_SIZE, "application/hal+json");
+    }
+
+    @Benchmark
+    public byte[] halFindAllByBeerStyle(BeerCatalogState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer/search/findAllByBeerStyle?beerStyle=IPA&size=" + BeerCatalogState.PAGE_SIZE, "application/hal+json");
+    }
+
+    @Benchmark
+    public byte[] thymeleafListBeers(BeerCatalogState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/web/beers?page=0&size=25", "text/html");
+    }
+
+    private byte[] get(BeerCatalogState state, ClientState clientState, String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(state.baseUri.resolve(path))
+            .header("Accept", accept)
+            .GET()
+            .build();
+        HttpResponse<byte[]> response = clientState.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,72 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup columns with and without the indexes of db/changelog/002-beer-indexes.xml.
+ * Run at 1M rows: {@code mvn -Pjmh verify -Djmh.includes=BeerIndexBenchmark -Djmh.catalog.sizes=1000000}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerIndexBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+
+        @Param({"true", "false"})
+        public boolean indexed;
+
+        @Setup(Level.Trial)
+        public void dropIndexes(BeerCatalogState catalog) {
+            if (!indexed) {
+                JdbcTemplate jdbcTemplate = catalog.context.getBean(JdbcTemplate.class);
+                jdbcTemplate.execute("alter table beer drop constraint uk_beer_upc");
+                jdbcTemplate.execute("drop index idx_beer_style");
+                jdbcTemplate.execute("drop index idx_beer_name_style");
+            }
+        }
+    }
+
+    @Benchmark
+    public Beer findByUpc(BeerCatalogState catalog, IndexState index) {
+        return catalog.beerRepository.findByUpc(catalog.upcOf(randomSeededBeer(catalog)));
+    }
+
+    @Benchmark
+    public Page<Beer> findAllByBeerName(BeerCatalogState catalog, IndexState index) {
+        return catalog.beerRepository.findAllByBeerName(nameOf(randomSeededBeer(catalog)), PageRequest.of(0, BeerCatalogState.PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Beer> findAllByBeerNameAndBeerStyle(BeerCatalogState catalog, IndexState index) {
+        int beer = randomSeededBeer(catalog);
+        return catalog.beerRepository.findAllByBeerNameAndBeerStyle(nameOf(beer), styleOf(beer), PageRequest.of(0, BeerCatalogState.PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Beer> findAllByBeerStyleDeepPage(BeerCatalogState catalog, IndexState index) {
+        return catalog.beerRepository.findAllByBeerStyle(BeerStyleEnum.IPA, PageRequest.of(catalog.lastPage / 20, BeerCatalogState.PAGE_SIZE));
+    }
+
+    private static int randomSeededBeer(BeerCatalogState catalog) {
+        return ThreadLocalRandom.current().nextInt(catalog.catalogSize - 30);
+    }
+
+    private static BeerStyleEnum styleOf(int beer) {
+        return BeerStyleEnum.values()[beer % BeerStyleEnum.values().length];
+    }
+
+    private static String nameOf(int beer) {
+        return "Benchmark " + styleOf(beer) + " " + beer;
+    }
+}
@@ -0,0 +1,49 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.search.BeerNameIndex;
+import ch.dboeckli.spring.datarest.search.BeerSearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name and upc prefix search on {@link BeerNameIndex}. The catalog is seeded with plain jdbc, so the index is rebuilt
+ * once per trial. Run at 1M rows: {@code mvn -Pjmh verify -Djmh.includes=BeerNameSearchBenchmark -Djmh.catalog.sizes=1000000}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerNameSearchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+
+        BeerNameIndex beerNameIndex;
+
+        @Setup(Level.Trial)
+        public void rebuild(BeerCatalogState catalog) {
+            beerNameIndex = catalog.context.getBean(BeerNameIndex.class);
+            beerNameIndex.rebuild();
+        }
+    }
+
+    @Benchmark
+    public BeerSearchResult selectiveName(BeerCatalogState catalog, IndexState index) {
+        int beer = ThreadLocalRandom.current().nextInt(catalog.catalogSize - 30);
+        return index.beerNameIndex.searchByName("bench ipa " + beer, 0, BeerCatalogState.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BeerSearchResult numberPrefix(BeerCatalogState catalog, IndexState index) {
+        int prefix = 10 + ThreadLocalRandom.current().nextInt(90);
+        return index.beerNameIndex.searchByName(Integer.toString(prefix), 0, BeerCatalogState.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BeerSearchResult upcPrefix(BeerCatalogState catalog, IndexState index) {
+        String upc = catalog.upcOf(ThreadLocalRandom.current().nextInt(catalog.catalogSize - 30));
+        return index.beerNameIndex.searchByUpcPrefix(upc.substring(0, upc.length() - 2), 0, BeerCatalogState.PAGE_SIZE);
+    }
+}
@@ -0,0 +1,39 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of the catalog as managed entities and as {@link BeerSummary}. The gc profiler reports the allocations per
+ * page ({@code gc.alloc.rate.norm}); the entity page also keeps a dirty checking snapshot per beer until the session
+ * ends. Only the first pages are read, so the offset scan doesn't dominate at 1M rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerProjectionBenchmark {
+
+    private static final Sort BY_NAME = Sort.by("beerName");
+
+    @Benchmark
+    public Page<Beer> entities(BeerCatalogState catalog) {
+        return catalog.beerRepository.findAll(randomPage(catalog));
+    }
+
+    @Benchmark
+    public Page<BeerSummary> summaries(BeerCatalogState catalog) {
+        return catalog.beerRepository.findAllSummariesBy(randomPage(catalog));
+    }
+
+    private static PageRequest randomPage(BeerCatalogState catalog) {
+        return PageRequest.of(ThreadLocalRandom.current().nextInt(Math.max(1, Math.min(100, catalog.lastPage))), BeerCatalogState.PAGE_SIZE, BY_NAME);
+    }
+}
@@ -0,0 +1,38 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerRepositoryBenchmark {
+
+    @Benchmark
+    public Page<Beer> findAllFirstPage(BeerCatalogState state) {
+        return state.beerRepository.findAll(PageRequest.of(0, BeerCatalogState.PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Beer> findAllLastPage(BeerCatalogState state) {
+        return state.beerRepository.findAll(PageRequest.of(state.lastPage, BeerCatalogState.PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Beer> findAllByBeerStyle(BeerCatalogState state) {
+        BeerStyleEnum style = BeerStyleEnum.values()[ThreadLocalRandom.current().nextInt(BeerStyleEnum.values().length)];
+        return state.beerRepository.findAllByBeerStyle(style, PageRequest.of(0, BeerCatalogState.PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Beer findByUpc(BeerCatalogState state) {
+        return state.beerRepository.findByUpc(state.upcOf(ThreadLocalRandom.current().nextInt(state.catalogSize - 30)));
+    }
+}
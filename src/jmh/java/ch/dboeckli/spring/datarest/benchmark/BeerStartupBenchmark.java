@@ -0,0 +1,177 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from process start until {@code /actuator/health/readiness} is {@code UP}, and the resident set size right
+ * after ({@code rssMegabytes}, read from {@code /proc}, Linux only). Every invocation starts a fresh process of the
+ * chosen launcher:
+ * <ul>
+ *     <li>{@code jvm}: the executable jar</li>
+ *     <li>{@code aot-cache}: the extracted jar with Spring AOT and the JDK AOT cache, built with {@code -Paot-cache}</li>
+ *     <li>{@code native}: the native image, built with {@code -Pnative}</li>
+ * </ul>
+ * <pre>
+ * mvn -Paot-cache -DskipTests package
+ * mvn -Pnative -DskipTests native:compile
+ * mvn -Pjmh verify -Djmh.includes=BeerStartupBenchmark -Djmh.startup.launchers=jvm,aot-cache,native
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+public class BeerStartupBenchmark {
+
+    /**
+     * Name of the jar and of the native image, both named by the artifact id.
+     */
+    private static final String APPLICATION = "spring-6-data-rest";
+
+    private static final String JVM_BUILD = "mvn -DskipTests package";
+    private static final String AOT_CACHE_BUILD = "mvn -Paot-cache -DskipTests package";
+    private static final String NATIVE_BUILD = "mvn -Pnative -DskipTests native:compile";
+
+    private static final Path TARGET = Path.of("target");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    @State(Scope.Benchmark)
+    public static class LauncherState {
+
+        @Param({"jvm", "aot-cache", "native"})
+        public String launcher;
+
+        List<String> command;
+        HttpClient client;
+
+        @Setup(Level.Trial)
+        public void resolveCommand() throws IOException {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            command = switch (launcher) {
+                case "jvm" -> List.of(java, "-jar", jar(TARGET, JVM_BUILD).toString());
+                case "aot-cache" -> List.of(java, "-XX:AOTCache=" + existing(TARGET.resolve("application/application.aot"), AOT_CACHE_BUILD),
+                    "-Dspring.aot.enabled=true", "-jar", jar(TARGET.resolve("application"), AOT_CACHE_BUILD).toString());
+                case "native" -> List.of(existing(TARGET.resolve(APPLICATION), NATIVE_BUILD).toString());
+                default -> throw new IllegalArgumentException("Unknown launcher " + launcher);
+            };
+            client = HttpClient.newHttpClient();
+        }
+
+        @TearDown(Level.Trial)
+        public void closeClient() {
+            client.close();
+        }
+
+        private static Path jar(Path directory, String build) throws IOException {
+            try (Stream<Path> files = Files.list(existing(directory, build))) {
+                return files
+                    .filter(file -> file.getFileName().toString().startsWith(APPLICATION) && file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No " + APPLICATION + " jar in " + directory + ", build it with " + build));
+            }
+        }
+
+        private static Path existing(Path path, String build) {
+            if (!Files.exists(path)) {
+                throw new IllegalStateException(path + " not found, build it with " + build);
+            }
+            return path;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public double rssMegabytes;
+
+        Process process;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rssMegabytes = 0;
+        }
+
+        @TearDown(Level.Invocation)
+        public void stopApplication() throws InterruptedException {
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+                process = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public long startUntilReady(LauncherState state, Footprint footprint) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(state.command);
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=WARN");
+        command.add("--management.tracing.sampling.probability=0.0");
+        footprint.process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+
+        awaitReady(state.client, footprint.process, URI.create("http://localhost:" + port + "/actuator/health/readiness"));
+        footprint.rssMegabytes = rssMegabytes(footprint.process.pid());
+        return footprint.process.pid();
+    }
+
+    private static void awaitReady(HttpClient client, Process process, URI readiness) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(readiness).timeout(Duration.ofSeconds(1)).GET().build();
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application not ready within " + READY_TIMEOUT);
+    }
+
+    private static double rssMegabytes(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> line.replaceAll("\\D", ""))
+                .mapToLong(Long::parseLong)
+                .findFirst()
+                .orElse(0) / 1024.0;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
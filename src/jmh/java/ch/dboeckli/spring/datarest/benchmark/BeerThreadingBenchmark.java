@@ -0,0 +1,86 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The repository endpoints under load from {@value #CLIENTS} concurrent clients, served by virtual threads and by a
+ * platform thread pool of {@value #PLATFORM_THREADS} threads. The connection pool is the same for both. Throughput
+ * mode gives requests/ms, sample mode the latency percentiles (p0.99 in the result).
+ * <p>
+ * The in-memory H2 database answers without network latency, point {@code spring.datasource.url} to a real
+ * database (via {@code -Djmh.jvm.args}) to see the effect of blocking jdbc calls.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+@Threads(BeerThreadingBenchmark.CLIENTS)
+public class BeerThreadingBenchmark {
+
+    static final int CLIENTS = 200;
+    static final int PLATFORM_THREADS = 50;
+
+    @State(Scope.Benchmark)
+    public static class ThreadingState extends BeerCatalogState {
+
+        @Param({"platform", "virtual"})
+        public String threads;
+
+        @Override
+        protected List<String> additionalProperties() {
+            return List.of(
+                "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                "spring.datasource.hikari.maximum-pool-size=20");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState {
+        HttpClient client;
+
+        @Setup(Level.Trial)
+        public void createClient() {
+            client = HttpClient.newHttpClient();
+        }
+
+        @TearDown(Level.Trial)
+        public void closeClient() {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] findAll(ThreadingState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer?page=1&size=" + BeerCatalogState.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public byte[] findAllByBeerStyle(ThreadingState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer/search/findAllByBeerStyle?beerStyle=IPA&size=" + BeerCatalogState.PAGE_SIZE);
+    }
+
+    @Benchmark
+    public byte[] findByUpc(ThreadingState state, ClientState clientState) throws IOException, InterruptedException {
+        return get(state, clientState, "/api/v4/beer/search/findByUpc?upc=" + state.upcOf(42));
+    }
+
+    private byte[] get(ThreadingState state, ClientState clientState, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(state.baseUri.resolve(path))
+            .header("Accept", "application/hal+json")
+            .GET()
+            .build();
+        HttpResponse<byte[]> response = clientState.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + path);
+        }
+        return response.body();
+    }
+}
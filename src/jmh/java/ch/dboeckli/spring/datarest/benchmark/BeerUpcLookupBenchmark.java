@@ -0,0 +1,47 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcEntry;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findByUpc} through JPA (query cache and second level cache as configured) against {@link BeerUpcIndex}.
+ * Add {@code -prof gc} for the allocation rate. Run at 1M rows:
+ * {@code mvn -Pjmh verify -Djmh.includes=BeerUpcLookupBenchmark -Djmh.catalog.sizes=1000000}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerUpcLookupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+
+        BeerUpcIndex beerUpcIndex;
+
+        @Setup(Level.Trial)
+        public void load(BeerCatalogState catalog) {
+            beerUpcIndex = catalog.context.getBean(BeerUpcIndex.class);
+            beerUpcIndex.load();
+        }
+    }
+
+    @Benchmark
+    public Beer jpa(BeerCatalogState catalog) {
+        return catalog.beerRepository.findByUpc(randomUpc(catalog));
+    }
+
+    @Benchmark
+    public BeerUpcEntry index(BeerCatalogState catalog, IndexState index) {
+        return index.beerUpcIndex.lookup(randomUpc(catalog));
+    }
+
+    private static String randomUpc(BeerCatalogState catalog) {
+        return catalog.upcOf(ThreadLocalRandom.current().nextInt(catalog.catalogSize - 30));
+    }
+}
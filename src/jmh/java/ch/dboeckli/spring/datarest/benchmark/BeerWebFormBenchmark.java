@@ -0,0 +1,134 @@
+package ch.dboeckli.spring.datarest.benchmark;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.metrics.BeerStatementCounter;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.web.BeerFormService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The web form writes of {@link BeerFormService} against the previous load-and-merge writes of the controller
+ * ({@code findById} and {@code save}, {@code deleteById}). The {@code statements} and {@code submissions} counters
+ * give the SQL statements per form submission: {@code statements / submissions}.
+ * {@code mvn -Pjmh verify -Djmh.includes=BeerWebFormBenchmark -Djmh.catalog.sizes=10000}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 5)
+@Measurement(time = 10)
+public class BeerWebFormBenchmark {
+
+    private static final AtomicLong UPCS = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FormState {
+
+        public long statements;
+        public long submissions;
+
+        BeerFormService beerFormService;
+        BeerRepository beerRepository;
+        TransactionTemplate transactionTemplate;
+        UUID beerId;
+        long version;
+
+        @Setup(Level.Trial)
+        public void createBeer(BeerCatalogState catalog) {
+            beerFormService = catalog.context.getBean(BeerFormService.class);
+            beerRepository = catalog.beerRepository;
+            transactionTemplate = new TransactionTemplate(catalog.context.getBean(PlatformTransactionManager.class));
+            Beer beer = beerFormService.create(form());
+            beerId = beer.getId();
+            version = beer.getVersion();
+        }
+
+        @Setup(Level.Iteration)
+        public void resetCounters() {
+            statements = 0;
+            submissions = 0;
+        }
+
+        long begin() {
+            return BeerStatementCounter.count();
+        }
+
+        void end(long statementsBefore, int forms) {
+            statements += BeerStatementCounter.count() - statementsBefore;
+            submissions += forms;
+        }
+    }
+
+    @Benchmark
+    public Beer create(FormState state) {
+        long before = state.begin();
+        Beer beer = state.beerFormService.create(form());
+        state.end(before, 1);
+        return beer;
+    }
+
+    @Benchmark
+    public BeerFormService.Outcome update(FormState state) {
+        long before = state.begin();
+        BeerFormService.Outcome outcome = state.beerFormService.update(state.beerId, state.version, form());
+        if (outcome == BeerFormService.Outcome.APPLIED) {
+            state.version++;
+        }
+        state.end(before, 1);
+        return outcome;
+    }
+
+    @Benchmark
+    public Beer updateLoadAndMerge(FormState state) {
+        long before = state.begin();
+        Beer form = form();
+        Beer beer = state.transactionTemplate.execute(status -> {
+            Beer existing = state.beerRepository.findById(state.beerId).orElseThrow();
+            existing.setBeerName(form.getBeerName());
+            existing.setBeerStyle(form.getBeerStyle());
+            existing.setUpc(form.getUpc());
+            existing.setQuantityOnHand(form.getQuantityOnHand());
+            existing.setPrice(form.getPrice());
+            return state.beerRepository.save(existing);
+        });
+        state.end(before, 1);
+        return beer;
+    }
+
+    @Benchmark
+    public BeerFormService.Outcome createAndDelete(FormState state) {
+        long before = state.begin();
+        Beer beer = state.beerFormService.create(form());
+        BeerFormService.Outcome outcome = state.beerFormService.delete(beer.getId());
+        state.end(before, 2);
+        return outcome;
+    }
+
+    @Benchmark
+    public UUID createAndDeleteLoading(FormState state) {
+        long before = state.begin();
+        Beer beer = state.beerFormService.create(form());
+        state.transactionTemplate.executeWithoutResult(status -> state.beerRepository.deleteById(beer.getId()));
+        state.end(before, 2);
+        return beer.getId();
+    }
+
+    private static Beer form() {
+        long number = UPCS.incrementAndGet();
+        return Beer.builder()
+            .beerName("Form Benchmark " + number)
+            .beerStyle(BeerStyleEnum.values()[(int) (number % BeerStyleEnum.values().length)])
+            .upc("3%012d".formatted(number))
+            .quantityOnHand((int) (number % 500))
+            .price(BigDecimal.valueOf(number % 10000, 2))
+            .build();
+    }
+}
@@ -1,8 +1,11 @@
 package ch.dboeckli.spring.datarest;
 
+import ch.dboeckli.spring.datarest.config.BeerRuntimeHints;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(BeerRuntimeHints.class)
 public class SpringApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,85 @@
+package ch.dboeckli.spring.datarest.bootstrap;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic beers. Every chunk gets its own {@link SplittableRandom} derived from the seed and the chunk number, so the
+ * data doesn't depend on which thread generates which chunk and no generator is shared between threads.
+ */
+class BeerGenerator {
+
+    static final String UPC_PREFIX = "3";
+
+    private static final String[] ADJECTIVES = {
+        "Hazy", "Golden", "Dark", "Wild", "Old", "Double", "Imperial", "Smoked", "Crisp", "Bitter", "Juicy", "Midnight"
+    };
+    private static final String[] NOUNS = {
+        "Trail", "Harbor", "Fox", "Barrel", "Summit", "River", "Anchor", "Meadow", "Lantern", "Forge", "Orchard", "Comet"
+    };
+
+    private final BeerStyleEnum[] styles;
+    private final int[] cumulativeWeights;
+    private final long seed;
+
+    BeerGenerator(Map<BeerStyleEnum, Integer> styleWeights, long seed) {
+        Map<BeerStyleEnum, Integer> weights = styleWeights;
+        if (weights.isEmpty()) {
+            weights = new EnumMap<>(BeerStyleEnum.class);
+            for (BeerStyleEnum style : BeerStyleEnum.values()) {
+                weights.put(style, 1);
+            }
+        }
+        List<BeerStyleEnum> weightedStyles = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<BeerStyleEnum, Integer> weight : weights.entrySet()) {
+            if (weight.getValue() > 0) {
+                total += weight.getValue();
+                weightedStyles.add(weight.getKey());
+                cumulative.add(total);
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("beer.loader.style-weights needs at least one positive weight");
+        }
+        this.styles = weightedStyles.toArray(BeerStyleEnum[]::new);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+        this.seed = seed;
+    }
+
+    /**
+     * Beers {@code first} (inclusive) to {@code last} (exclusive) of the synthetic catalog.
+     */
+    List<Beer> generate(int chunk, long first, long last) {
+        SplittableRandom random = new SplittableRandom(seed * 31 + chunk);
+        List<Beer> beers = new ArrayList<>((int) (last - first));
+        for (long i = first; i < last; i++) {
+            BeerStyleEnum style = style(random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+            beers.add(Beer.builder()
+                .beerName(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i)
+                .beerStyle(style)
+                .upc(UPC_PREFIX + "%012d".formatted(i))
+                .price(BigDecimal.valueOf(random.nextInt(100, 10000), 2))
+                .quantityOnHand(random.nextInt(5000))
+                .build());
+        }
+        return beers;
+    }
+
+    private BeerStyleEnum style(int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return styles[i];
+            }
+        }
+        return styles[styles.length - 1];
+    }
+}
@@ -1,15 +1,23 @@
 package ch.dboeckli.spring.datarest.bootstrap;
 
+import ch.dboeckli.spring.datarest.catalog.BeerChunkPersister;
 import ch.dboeckli.spring.datarest.entity.Beer;
 import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
 import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Component
@@ -46,264 +54,131 @@ public class BeerLoader implements CommandLineRunner {
     public static final String BEER_29_UPC = "0986442492927";
     public static final String BEER_30_UPC = "8670687641074";
 
+    private static final List<SampleBeer> SAMPLE_BEERS = List.of(
+        new SampleBeer("Mango Bobs", BeerStyleEnum.ALE, BEER_1_UPC),
+        new SampleBeer("Galaxy Cat", BeerStyleEnum.PALE_ALE, BEER_2_UPC),
+        new SampleBeer("No Hammers On The Bar", BeerStyleEnum.WHEAT, BEER_3_UPC),
+        new SampleBeer("Blessed", BeerStyleEnum.STOUT, BEER_4_UPC),
+        new SampleBeer("Adjunct Trail", BeerStyleEnum.STOUT, BEER_5_UPC),
+        new SampleBeer("Very GGGreenn", BeerStyleEnum.IPA, BEER_6_UPC),
+        new SampleBeer("Double Barrel Hunahpu's", BeerStyleEnum.STOUT, BEER_7_UPC),
+        new SampleBeer("Very Hazy", BeerStyleEnum.IPA, BEER_8_UPC),
+        new SampleBeer("SR-71", BeerStyleEnum.STOUT, BEER_9_UPC),
+        new SampleBeer("Pliny the Younger", BeerStyleEnum.IPA, BEER_10_UPC),
+        new SampleBeer("Blessed", BeerStyleEnum.STOUT, BEER_11_UPC),
+        new SampleBeer("King Krush", BeerStyleEnum.IPA, BEER_12_UPC),
+        new SampleBeer("PBS Porter", BeerStyleEnum.PORTER, BEER_13_UPC),
+        new SampleBeer("Pinball Porter", BeerStyleEnum.STOUT, BEER_14_UPC),
+        new SampleBeer("Golden Budda", BeerStyleEnum.STOUT, BEER_15_UPC),
+        new SampleBeer("Grand Central Red", BeerStyleEnum.LAGER, BEER_16_UPC),
+        new SampleBeer("Pac-Man", BeerStyleEnum.STOUT, BEER_17_UPC),
+        new SampleBeer("Ro Sham Bo", BeerStyleEnum.IPA, BEER_18_UPC),
+        new SampleBeer("Summer Wheatly", BeerStyleEnum.WHEAT, BEER_19_UPC),
+        new SampleBeer("Java Jill", BeerStyleEnum.LAGER, BEER_20_UPC),
+        new SampleBeer("Bike Trail Pale", BeerStyleEnum.PALE_ALE, BEER_21_UPC),
+        new SampleBeer("N.Z.P", BeerStyleEnum.IPA, BEER_22_UPC),
+        new SampleBeer("Stawberry Blond", BeerStyleEnum.WHEAT, BEER_23_UPC),
+        new SampleBeer("Loco", BeerStyleEnum.PORTER, BEER_24_UPC),
+        new SampleBeer("Spocktoberfest", BeerStyleEnum.STOUT, BEER_25_UPC),
+        new SampleBeer("Beach Blond Ale", BeerStyleEnum.ALE, BEER_26_UPC),
+        new SampleBeer("Bimini Twist IPA", BeerStyleEnum.IPA, BEER_27_UPC),
+        new SampleBeer("Rod Bender Red Ale", BeerStyleEnum.ALE, BEER_28_UPC),
+        new SampleBeer("Floating Dock", BeerStyleEnum.SAISON, BEER_29_UPC),
+        new SampleBeer("El Hefe", BeerStyleEnum.WHEAT, BEER_30_UPC)
+    );
+
     private final BeerRepository beerRepository;
-    private final SecureRandom random;
+    private final BeerChunkPersister beerChunkPersister;
+    private final BeerLoaderProperties properties;
+    private final AtomicLong generated = new AtomicLong();
 
-    public BeerLoader(BeerRepository beerRepository) {
+    public BeerLoader(BeerRepository beerRepository, BeerChunkPersister beerChunkPersister, BeerLoaderProperties properties,
+                      MeterRegistry meterRegistry) {
         this.beerRepository = beerRepository;
-        this.random = new SecureRandom();
+        this.beerChunkPersister = beerChunkPersister;
+        this.properties = properties;
+        meterRegistry.gauge("beer.loader.generated", generated);
     }
 
     @Override
     public void run(String... args) {
-        loadBeerObjects();
-    }
-
-    private synchronized void loadBeerObjects() {
-        log.info("Loading initial data. Count is: {}", beerRepository.count() );
-
-        if (beerRepository.count() == 0) {
-            beerRepository.save(Beer.builder()
-                .beerName("Mango Bobs")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_1_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Galaxy Cat")
-                .beerStyle(BeerStyleEnum.PALE_ALE)
-                .upc(BEER_2_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("No Hammers On The Bar")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_3_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Blessed")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_4_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Adjunct Trail")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_5_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Very GGGreenn")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_6_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Double Barrel Hunahpu's")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_7_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Very Hazy")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_8_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("SR-71")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_9_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pliny the Younger")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_10_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Blessed")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_11_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("King Krush")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_12_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("PBS Porter")
-                .beerStyle(BeerStyleEnum.PORTER)
-                .upc(BEER_13_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pinball Porter")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_14_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Golden Budda")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_15_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Grand Central Red")
-                .beerStyle(BeerStyleEnum.LAGER)
-                .upc(BEER_16_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pac-Man")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_17_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Ro Sham Bo")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_18_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Summer Wheatly")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_19_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Java Jill")
-                .beerStyle(BeerStyleEnum.LAGER)
-                .upc(BEER_20_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Bike Trail Pale")
-                .beerStyle(BeerStyleEnum.PALE_ALE)
-                .upc(BEER_21_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("N.Z.P")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_22_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Stawberry Blond")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_23_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Loco")
-                .beerStyle(BeerStyleEnum.PORTER)
-                .upc(BEER_24_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Spocktoberfest")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_25_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
-
-            beerRepository.save(Beer.builder()
-                .beerName("Beach Blond Ale")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_26_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
+        if (!properties.isEnabled()) {
+            log.info("Beer loader is disabled");
+            return;
+        }
+        long count = beerRepository.count();
+        log.info("Loading initial data. Count is: {}", count);
+        if (count > 0) {
+            return;
+        }
 
-            beerRepository.save(Beer.builder()
-                .beerName("Bimini Twist IPA")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_27_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
+        loadSampleBeers();
+        if (properties.getSyntheticCount() > 0) {
+            if (properties.isBackground()) {
+                Thread.ofPlatform().name("beer-loader").daemon().start(this::loadSyntheticBeers);
+            } else {
+                loadSyntheticBeers();
+            }
+        }
+    }
 
-            beerRepository.save(Beer.builder()
-                .beerName("Rod Bender Red Ale")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_28_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
+    private void loadSampleBeers() {
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        List<Beer> beers = new ArrayList<>(SAMPLE_BEERS.size());
+        for (SampleBeer sample : SAMPLE_BEERS) {
+            beers.add(Beer.builder()
+                .beerName(sample.name())
+                .beerStyle(sample.style())
+                .upc(sample.upc())
+                .price(BigDecimal.valueOf(random.nextInt(10000), 2))
                 .quantityOnHand(random.nextInt(5000))
                 .build());
+        }
+        beerChunkPersister.persist(beers);
+        log.info("Beer Records loaded: {}", beers.size());
+    }
 
-            beerRepository.save(Beer.builder()
-                .beerName("Floating Dock")
-                .beerStyle(BeerStyleEnum.SAISON)
-                .upc(BEER_29_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
+    private void loadSyntheticBeers() {
+        long total = properties.getSyntheticCount();
+        int chunkSize = properties.getChunkSize();
+        int parallelism = properties.getParallelism() > 0 ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+        BeerGenerator generator = new BeerGenerator(properties.getStyleWeights(), properties.getSeed());
+        long reportEvery = Math.max(chunkSize, total / 10);
+        long started = System.nanoTime();
+        log.info("Generating {} beers in chunks of {} with {} writers", total, chunkSize, parallelism);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<?>> chunks = new ArrayList<>();
+            int chunk = 0;
+            for (long first = 0; first < total; first += chunkSize) {
+                long from = first;
+                long to = Math.min(total, first + chunkSize);
+                int number = chunk++;
+                chunks.add(executor.submit(() -> {
+                    beerChunkPersister.persist(generator.generate(number, from, to));
+                    long done = generated.addAndGet(to - from);
+                    if (done / reportEvery != (done - (to - from)) / reportEvery) {
+                        log.info("Generated {}/{} beers ({} rows/s)", done, total, throughput(done, started));
+                    }
+                }));
+            }
+            for (Future<?> future : chunks) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Generating beers was interrupted after {} rows", generated.get());
+        } catch (ExecutionException e) {
+            log.error("Generating beers failed after {} rows", generated.get(), e.getCause());
+        }
+        log.info("Beer Records generated: {} in {} ms ({} rows/s)", generated.get(),
+            (System.nanoTime() - started) / 1_000_000, throughput(generated.get(), started));
+    }
 
-            beerRepository.save(Beer.builder()
-                .beerName("El Hefe")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_30_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build());
+    private static long throughput(long rows, long started) {
+        return rows * 1_000_000_000L / Math.max(1, System.nanoTime() - started);
+    }
 
-            log.info("Beer Records loaded: {}", beerRepository.count());
-        }
+    private record SampleBeer(String name, BeerStyleEnum style, String upc) {
     }
 }
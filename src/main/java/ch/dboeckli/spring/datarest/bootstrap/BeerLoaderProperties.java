@@ -0,0 +1,51 @@
+package ch.dboeckli.spring.datarest.bootstrap;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Initial data of an empty database: the sample beers plus {@code synthetic-count} generated ones, e.g. for load tests.
+ */
+@Component
+@ConfigurationProperties(prefix = "beer.loader")
+@Data
+public class BeerLoaderProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Generated beers on top of the 30 sample beers.
+     */
+    private long syntheticCount = 0;
+
+    /**
+     * Relative weight per style of the generated beers; styles not listed are not generated. All styles are equally
+     * likely when empty.
+     */
+    private Map<BeerStyleEnum, Integer> styleWeights = new EnumMap<>(BeerStyleEnum.class);
+
+    /**
+     * Rows per transaction.
+     */
+    private int chunkSize = 5000;
+
+    /**
+     * Chunks written concurrently; 0 uses all available processors.
+     */
+    private int parallelism = 1;
+
+    /**
+     * Generate in the background, the application is ready (and serving the sample beers) while the rest is loaded.
+     */
+    private boolean background = true;
+
+    /**
+     * Same seed, same data.
+     */
+    private long seed = 42;
+}
@@ -0,0 +1,23 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Forwards beer changes committed on this instance to the other replicas, which then call
+ * {@link BeerL2CacheInvalidator#evictLocally(Collection)} or {@link BeerL2CacheInvalidator#evictAllLocally()}. Without
+ * a broadcaster bean the caches are only coherent within a single instance; {@link HttpBeerCacheInvalidationBroadcaster}
+ * is enabled with {@code beer.l2-cache.invalidation.mode=http}.
+ */
+public interface BeerCacheInvalidationBroadcaster {
+
+    /**
+     * @param beerIds all beers one transaction changed, sent as one message
+     */
+    void broadcast(Collection<UUID> beerIds);
+
+    /**
+     * Bulk writes: the peers drop every cached beer instead of receiving the ids.
+     */
+    void broadcastAll();
+}
@@ -0,0 +1,117 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.datasource.BeerRoutingDataSource;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Totals of the paged beer queries, kept per query and filter combination.
+ */
+@Component
+@Slf4j
+public class BeerCountCache {
+
+    private final BeerCountCacheProperties properties;
+    private final Map<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter hits;
+    private final Counter misses;
+
+    public BeerCountCache(BeerCountCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = meterRegistry.counter("beer.count.cache", "result", "hit");
+        this.misses = meterRegistry.counter("beer.count.cache", "result", "miss");
+        meterRegistry.gaugeMapSize("beer.count.cache.size", Tags.empty(), counts);
+    }
+
+    public long count(String query, Object[] filter, LongSupplier counter) {
+        if (!properties.isEnabled()) {
+            return counter.getAsLong();
+        }
+        CountKey key = new CountKey(query, Arrays.asList(filter.clone()));
+        long now = System.nanoTime();
+        CachedCount cached = counts.get(key);
+        if (cached != null && now - cached.loadedAt() < properties.getTtl().toNanos()) {
+            hits.increment();
+            return cached.count();
+        }
+
+        misses.increment();
+        long generationBefore = generation.get();
+        long count;
+        try (var _ = BeerRoutingDataSource.refill()) {
+            count = counter.getAsLong();
+        }
+        lock.lock();
+        try {
+            // a change committed while counting must not leave a stale total behind
+            if (generation.get() == generationBefore) {
+                if (counts.size() >= properties.getMaxEntries()) {
+                    counts.clear();
+                }
+                counts.put(key, new CachedCount(count, now));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return count;
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            counts.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        if (properties.isInvalidateOnChange() && affectsCounts(event)) {
+            log.debug("Invalidating beer counts after {} of {}", event.type(), event.beerId());
+            invalidate();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        if (properties.isInvalidateOnChange() && event.changes().stream().anyMatch(this::affectsCounts)) {
+            log.debug("Invalidating beer counts after {} bulk changes", event.changes().size());
+            invalidate();
+        }
+    }
+
+    private boolean affectsCounts(BeerChangedEvent event) {
+        if (event.type() != BeerChangedEvent.ChangeType.UPDATED || event.previous() == null) {
+            return true;
+        }
+        BeerState previous = event.previous();
+        BeerState current = event.current();
+        return !Objects.equals(previous.beerName(), current.beerName()) || previous.beerStyle() != current.beerStyle();
+    }
+
+    private record CountKey(String query, List<Object> filter) {
+    }
+
+    private record CachedCount(long count, long loadedAt) {
+    }
+}
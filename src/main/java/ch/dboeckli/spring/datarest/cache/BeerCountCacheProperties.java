@@ -0,0 +1,30 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.count-cache")
+@Data
+public class BeerCountCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound for the age of a cached total.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * When false, totals are only refreshed after the ttl and become approximate under writes.
+     */
+    private boolean invalidateOnChange = true;
+
+    /**
+     * Filter combinations kept at most; the cache is reset when exceeded.
+     */
+    private int maxEntries = 10_000;
+}
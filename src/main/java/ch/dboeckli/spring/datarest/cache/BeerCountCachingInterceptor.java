@@ -0,0 +1,78 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.repository.BeerRepositoryInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the paged {@code findAll*} queries of {@link BeerRepository} from their {@code findSlice*} twin and takes the
+ * total from {@link BeerCountCache}, so the count query only runs on a cache miss. By convention
+ * {@code findAllByX(.., Pageable)} pairs with {@code findSliceByX(.., Pageable)} and {@code countByX(..)};
+ * methods without such twins are left alone.
+ */
+@Component
+@Order(100)
+@RequiredArgsConstructor
+public class BeerCountCachingInterceptor implements BeerRepositoryInterceptor {
+
+    private static final String PAGED_PREFIX = "findAll";
+
+    private final BeerCountCache countCache;
+    private final Map<Method, Optional<CountedQuery>> countedQueries = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Optional<CountedQuery> countedQuery = countedQueries.computeIfAbsent(invocation.getMethod(), this::resolve);
+        Object[] arguments = invocation.getArguments();
+        if (countedQuery.isEmpty() || ((Pageable) arguments[arguments.length - 1]).isUnpaged()) {
+            return invocation.proceed();
+        }
+
+        CountedQuery query = countedQuery.get();
+        Object repository = ((ProxyMethodInvocation) invocation).getProxy();
+        Pageable pageable = (Pageable) arguments[arguments.length - 1];
+        Object[] filter = Arrays.copyOf(arguments, arguments.length - 1);
+
+        Slice<?> slice = (Slice<?>) ReflectionUtils.invokeMethod(query.sliceMethod(), repository, arguments);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable,
+            () -> countCache.count(query.name(), filter, () -> (Long) ReflectionUtils.invokeMethod(query.countMethod(), repository, filter)));
+    }
+
+    private Optional<CountedQuery> resolve(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (!Page.class.equals(method.getReturnType())
+            || !method.getName().startsWith(PAGED_PREFIX)
+            || parameterTypes.length == 0
+            || !Pageable.class.equals(parameterTypes[parameterTypes.length - 1])) {
+            return Optional.empty();
+        }
+        String criteria = method.getName().substring(PAGED_PREFIX.length());
+        Method sliceMethod = ClassUtils.getMethodIfAvailable(BeerRepository.class,
+            "findSlice" + (criteria.isEmpty() ? "By" : criteria), parameterTypes);
+        Method countMethod = ClassUtils.getMethodIfAvailable(BeerRepository.class,
+            "count" + criteria, Arrays.copyOf(parameterTypes, parameterTypes.length - 1));
+        if (sliceMethod == null || countMethod == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new CountedQuery(method.getName(), sliceMethod, countMethod));
+    }
+
+    private record CountedQuery(String name, Method sliceMethod, Method countMethod) {
+    }
+}
@@ -0,0 +1,119 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.datasource.BeerRoutingDataSource;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.etag.BeerCollectionGeneration;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.web.BeerFragmentCache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Local writes keep the second level cache up to date by themselves (read-write region and update timestamps of the
+ * query cache). Writes of other replicas are not seen here, so the beers changed by a transaction are collected and
+ * broadcast in one message after the commit, and the receiving replicas evict the entities, the cached query results,
+ * the cached totals, the cached pages and the cached web list fragments, and move on the generation of the collection
+ * ETags. With a database replica, their reads then stay on the primary until the replica has caught up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BeerL2CacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final BeerCountCache beerCountCache;
+    private final BeerResponseCache beerResponseCache;
+    private final BeerFragmentCache beerFragmentCache;
+    private final BeerCollectionGeneration beerCollectionGeneration;
+    private final BeerL2CacheProperties properties;
+    private final ObjectProvider<BeerCacheInvalidationBroadcaster> broadcasters;
+    private final ObjectProvider<BeerRoutingDataSource> routingDataSource;
+
+    @EventListener
+    public void onBeerChanged(BeerChangedEvent event) {
+        collect(Set.of(event.beerId()));
+    }
+
+    @EventListener
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        collect(event.changes().stream().map(BeerChangedEvent::beerId).toList());
+    }
+
+    private void collect(Collection<UUID> beerIds) {
+        if (broadcasters.orderedStream().findAny().isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcast(new LinkedHashSet<>(beerIds));
+            return;
+        }
+        PendingEvictions pending = null;
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvictions evictions && evictions.owner == this) {
+                pending = evictions;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingEvictions(this);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.beerIds.addAll(beerIds);
+    }
+
+    private void broadcast(Set<UUID> beerIds) {
+        if (beerIds.size() > properties.getInvalidation().getMaxIdsPerMessage()) {
+            broadcasters.orderedStream().forEach(BeerCacheInvalidationBroadcaster::broadcastAll);
+        } else {
+            broadcasters.orderedStream().forEach(broadcaster -> broadcaster.broadcast(beerIds));
+        }
+    }
+
+    public void evictLocally(Collection<UUID> beerIds) {
+        log.debug("Evicting {} beers from the second level cache", beerIds.size());
+        beerIds.forEach(beerId -> entityManagerFactory.getCache().evict(Beer.class, beerId));
+        evictDerived();
+    }
+
+    public void evictAllLocally() {
+        log.debug("Evicting all beers from the second level cache");
+        entityManagerFactory.getCache().evict(Beer.class);
+        evictDerived();
+    }
+
+    private void evictDerived() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        beerCountCache.invalidate();
+        beerResponseCache.invalidate();
+        beerFragmentCache.invalidate();
+        beerCollectionGeneration.changed();
+        routingDataSource.ifAvailable(BeerRoutingDataSource::changed);
+    }
+
+    /**
+     * Registered once per transaction; identity equality, as the set of synchronizations holds it while it grows.
+     */
+    @RequiredArgsConstructor
+    private static final class PendingEvictions implements TransactionSynchronization {
+
+        private final BeerL2CacheInvalidator owner;
+        private final Set<UUID> beerIds = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            owner.broadcast(beerIds);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invalidation of the Hibernate second level cache across replicas. Sizes and ttls of the cache regions themselves
+ * are configured in caffeine-jcache.conf.
+ */
+@Component
+@ConfigurationProperties(prefix = "beer.l2-cache")
+@Data
+public class BeerL2CacheProperties {
+
+    private Invalidation invalidation = new Invalidation();
+
+    public enum Mode {
+        NONE, HTTP
+    }
+
+    @Data
+    public static class Invalidation {
+
+        private Mode mode = Mode.NONE;
+
+        /**
+         * Base urls of the other replicas, e.g. http://spring-6-data-rest-1:8084.
+         */
+        private List<URI> peers = new ArrayList<>();
+
+        /**
+         * Host name resolving to all replicas (a kubernetes headless service); resolved on every broadcast.
+         */
+        private String peerService;
+
+        private int peerPort = 8084;
+
+        /**
+         * Shared secret sent with and expected on eviction requests; required with {@link Mode#HTTP}, the endpoints are
+         * reachable through the service.
+         */
+        private String token;
+
+        private Duration timeout = Duration.ofSeconds(2);
+
+        /**
+         * A transaction changing more beers makes the peers drop all cached beers instead of receiving the ids.
+         */
+        private int maxIdsPerMessage = 500;
+    }
+}
@@ -0,0 +1,136 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized responses of the hot beer collection pages, least recently used first out once
+ * {@code beer.response-cache.max-size} is exceeded. Every committed beer change drops all pages.
+ */
+@Component
+@Slf4j
+public class BeerResponseCache {
+
+    private final BeerResponseCacheProperties properties;
+    private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Counter evictions;
+
+    public BeerResponseCache(BeerResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.evictions = meterRegistry.counter("beer.response.cache.evictions");
+        meterRegistry.gauge("beer.response.cache.bytes", bytes);
+        meterRegistry.gauge("beer.response.cache.entries", this, BeerResponseCache::size);
+    }
+
+    public CachedResponse get(String key) {
+        lock.lock();
+        try {
+            return responses.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Generation to pass to {@link #put}, taken before the response is rendered.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the body unless a change was committed since {@code generationBefore}, it could be stale already.
+     */
+    public void put(String key, String contentType, byte[] body, long generationBefore) {
+        if (body.length > properties.getMaxEntrySize().toBytes()) {
+            return;
+        }
+        byte[] gzipped = properties.isGzip() && body.length >= properties.getGzipMinSize().toBytes() ? gzip(body) : null;
+        CachedResponse response = new CachedResponse(contentType, body, gzipped);
+        lock.lock();
+        try {
+            if (generation.get() != generationBefore) {
+                return;
+            }
+            CachedResponse replaced = responses.put(key, response);
+            bytes.addAndGet(response.weight() - (replaced == null ? 0 : replaced.weight()));
+            Iterator<CachedResponse> leastRecentlyUsed = responses.values().iterator();
+            while (bytes.get() > properties.getMaxSize().toBytes() && leastRecentlyUsed.hasNext()) {
+                bytes.addAndGet(-leastRecentlyUsed.next().weight());
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            responses.clear();
+            bytes.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return responses.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        log.debug("Dropping cached beer pages after {} of {}", event.type(), event.beerId());
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        log.debug("Dropping cached beer pages after {} bulk changes", event.changes().size());
+        invalidate();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param gzipped the body gzip compressed, {@code null} for small bodies
+     */
+    public record CachedResponse(String contentType, byte[] body, byte[] gzipped) {
+
+        long weight() {
+            return body.length + (gzipped == null ? 0 : gzipped.length);
+        }
+    }
+}
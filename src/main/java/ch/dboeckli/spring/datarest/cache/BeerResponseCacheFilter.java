@@ -0,0 +1,124 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.datasource.BeerRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves the first {@code beer.response-cache.max-pages} pages of {@code /api/v4/beer} and of its search resources
+ * from {@link BeerResponseCache}: a hit is a copy of the serialized (and optionally gzipped) body, without a query or
+ * HAL rendering. Runs after the conditional request filter, a matching {@code If-None-Match} never gets here.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class BeerResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final BeerResponseCache beerResponseCache;
+    private final BeerResponseCacheProperties properties;
+    private final RepositoryRestConfiguration repositoryRestConfiguration;
+    private final Counter hits;
+    private final Counter misses;
+
+    public BeerResponseCacheFilter(BeerResponseCache beerResponseCache, BeerResponseCacheProperties properties,
+                                   RepositoryRestConfiguration repositoryRestConfiguration, MeterRegistry meterRegistry) {
+        this.beerResponseCache = beerResponseCache;
+        this.properties = properties;
+        this.repositoryRestConfiguration = repositoryRestConfiguration;
+        this.hits = meterRegistry.counter("beer.response.cache", "result", "hit");
+        this.misses = meterRegistry.counter("beer.response.cache", "result", "miss");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String collectionPath = repositoryRestConfiguration.getBasePath().getPath() + "/beer";
+        String searchPrefix = collectionPath + "/search/";
+        boolean collection = path.equals(collectionPath)
+            || (path.startsWith(searchPrefix) && path.length() > searchPrefix.length() && path.indexOf('/', searchPrefix.length()) < 0);
+        return !collection || !isHotPage(request.getParameter("page"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String key = key(request);
+        boolean acceptsGzip = acceptsGzip(request);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        BeerResponseCache.CachedResponse cached = beerResponseCache.get(key);
+        if (cached != null) {
+            hits.increment();
+            response.setContentType(cached.contentType());
+            byte[] body = cached.body();
+            if (acceptsGzip && cached.gzipped() != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                body = cached.gzipped();
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            return;
+        }
+
+        misses.increment();
+        long generation = beerResponseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try (var _ = BeerRoutingDataSource.refill()) {
+            filterChain.doFilter(request, wrapper);
+        }
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null && !request.isAsyncStarted()) {
+            beerResponseCache.put(key, wrapper.getContentType(), wrapper.getContentAsByteArray(), generation);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private boolean isHotPage(String page) {
+        if (!StringUtils.hasText(page)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(page) < properties.getMaxPages();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Path, query parameters in canonical order and the Accept header.
+     */
+    static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI()).append('?');
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        parameters.forEach((name, values) -> key.append(name).append('=').append(Arrays.toString(values)).append('&'));
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return key.append('|').append(accept == null ? "" : accept).toString();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+}
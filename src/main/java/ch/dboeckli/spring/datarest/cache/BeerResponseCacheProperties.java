@@ -0,0 +1,36 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "beer.response-cache")
+@Data
+public class BeerResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Memory budget of all cached bodies (plain and gzip), least recently used pages are evicted beyond.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+
+    /**
+     * Bodies larger than this are not cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * Only the first pages are hot, deeper pages are not cached.
+     */
+    private int maxPages = 3;
+
+    /**
+     * Keep a gzip copy of bodies of at least {@code gzip-min-size} for clients accepting gzip.
+     */
+    private boolean gzip = true;
+
+    private DataSize gzipMinSize = DataSize.ofKilobytes(1);
+}
@@ -0,0 +1,97 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Posts the ids changed by one transaction to {@code /internal/cache/beer/evict} of every peer, or a bulk write to
+ * {@code /internal/cache/beer/evict-all}, fire and forget. A peer that misses an eviction catches up after the ttl of
+ * the cache regions.
+ */
+@Component
+@ConditionalOnProperty(prefix = "beer.l2-cache.invalidation", name = "mode", havingValue = "http")
+@Slf4j
+public class HttpBeerCacheInvalidationBroadcaster implements BeerCacheInvalidationBroadcaster {
+
+    public static final String EVICT_PATH = "/internal/cache/beer/evict";
+    public static final String EVICT_ALL_PATH = "/internal/cache/beer/evict-all";
+    public static final String TOKEN_HEADER = "X-Cache-Invalidation-Token";
+
+    private final BeerL2CacheProperties.Invalidation properties;
+    private final HttpClient httpClient;
+
+    public HttpBeerCacheInvalidationBroadcaster(BeerL2CacheProperties properties) {
+        this.properties = properties.getInvalidation();
+        if (!StringUtils.hasText(this.properties.getToken())) {
+            throw new IllegalStateException("beer.l2-cache.invalidation.token must be set with beer.l2-cache.invalidation.mode=http");
+        }
+        this.httpClient = HttpClient.newBuilder().connectTimeout(this.properties.getTimeout()).build();
+    }
+
+    @Override
+    public void broadcast(Collection<UUID> beerIds) {
+        String body = beerIds.stream().map(beerId -> '"' + beerId.toString() + '"').collect(Collectors.joining(",", "[", "]"));
+        send(EVICT_PATH, HttpRequest.BodyPublishers.ofString(body), beerIds.size() + " beers");
+    }
+
+    @Override
+    public void broadcastAll() {
+        send(EVICT_ALL_PATH, HttpRequest.BodyPublishers.noBody(), "all beers");
+    }
+
+    private void send(String path, HttpRequest.BodyPublisher body, String what) {
+        for (URI peer : peers()) {
+            HttpRequest request = HttpRequest.newBuilder(peer.resolve(path))
+                .timeout(properties.getTimeout())
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(TOKEN_HEADER, properties.getToken())
+                .POST(body);
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.warn("Could not evict {} on {}: {}", what, peer, error.getMessage());
+                    } else if (response.statusCode() >= 300) {
+                        log.warn("Could not evict {} on {}: status {}", what, peer, response.statusCode());
+                    }
+                });
+        }
+    }
+
+    Set<URI> peers() {
+        Set<URI> peers = new LinkedHashSet<>(properties.getPeers());
+        if (StringUtils.hasText(properties.getPeerService())) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(properties.getPeerService())) {
+                    if (!isLocal(address)) {
+                        peers.add(new URI("http", null, address.getHostAddress(), properties.getPeerPort(), null, null, null));
+                    }
+                }
+            } catch (UnknownHostException | URISyntaxException e) {
+                log.warn("Could not resolve peer service {}: {}", properties.getPeerService(), e.getMessage());
+            }
+        }
+        return peers;
+    }
+
+    private boolean isLocal(InetAddress address) {
+        try {
+            return address.isLoopbackAddress() || NetworkInterface.getByInetAddress(address) != null;
+        } catch (SocketException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import org.springframework.http.MediaType;
+
+public enum BeerCatalogFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE),
+    CSV(BeerCsv.MEDIA_TYPE);
+
+    private final String mediaType;
+
+    BeerCatalogFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+}
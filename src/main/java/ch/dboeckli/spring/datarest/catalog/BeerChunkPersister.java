@@ -0,0 +1,111 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerPersistenceEventPublisher;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes beers in one transaction, flushing every {@code hibernate.jdbc.batch_size} rows so the statements go out as
+ * JDBC batches and the persistence context stays small. The ids are generated in the application (UUID), so Hibernate
+ * doesn't need a round trip per row. The rows of a chunk are published as one {@link BeerBulkChangedEvent}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerChunkPersister {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BeerRepository beerRepository;
+    private final BeerPersistenceEventPublisher persistenceEventPublisher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Inserts beers with upcs not stored yet, e.g. generated ones.
+     */
+    public void persist(List<Beer> beers) {
+        write(() -> {
+            for (int i = 0; i < beers.size(); i++) {
+                entityManager.persist(beers.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Inserts beers with a new upc and updates name, style, stock and price of the beers already stored under their
+     * upc. Of several beers with the same upc the last one wins.
+     *
+     * @return the number of beers that updated a stored one
+     */
+    public int upsert(List<Beer> beers) {
+        return write(() -> {
+            int updated = 0;
+            for (int from = 0; from < beers.size(); from += batchSize) {
+                List<Beer> batch = beers.subList(from, Math.min(beers.size(), from + batchSize));
+                Map<String, Beer> byUpc = new HashMap<>();
+                beerRepository.findAllByUpcIn(batch.stream().map(Beer::getUpc).toList())
+                    .forEach(stored -> byUpc.put(stored.getUpc(), stored));
+                for (Beer beer : batch) {
+                    Beer stored = byUpc.putIfAbsent(beer.getUpc(), beer);
+                    if (stored == null) {
+                        entityManager.persist(beer);
+                    } else {
+                        stored.setBeerName(beer.getBeerName());
+                        stored.setBeerStyle(beer.getBeerStyle());
+                        stored.setQuantityOnHand(beer.getQuantityOnHand());
+                        stored.setPrice(beer.getPrice());
+                        updated++;
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+            }
+            return updated;
+        });
+    }
+
+    private <T> T write(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            CacheMode cacheMode = session.getCacheMode();
+            // bulk loads would only evict the hot entries of the second level cache; the session may be the one of the
+            // request (open in view), so the mode is put back
+            session.setCacheMode(CacheMode.IGNORE);
+            try {
+                List<BeerChangedEvent> changes = new ArrayList<>();
+                T result = persistenceEventPublisher.collecting(changes, work);
+                if (!changes.isEmpty()) {
+                    eventPublisher.publishEvent(new BeerBulkChangedEvent(changes));
+                }
+                return result;
+            } finally {
+                session.setCacheMode(cacheMode);
+            }
+        });
+    }
+}
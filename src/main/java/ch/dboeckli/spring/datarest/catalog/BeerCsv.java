@@ -0,0 +1,105 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The csv format of the catalog: a header line with {@link #HEADER} followed by one beer per record. Fields containing
+ * a comma, a quote or a line break are quoted, quotes are doubled (RFC 4180); a quoted line break continues the record
+ * on the next line, see {@link #togglesQuote}. Exports append the columns of {@link #EXPORT_HEADER}, which an import
+ * ignores, so an export can be imported again.
+ */
+public final class BeerCsv {
+
+    public static final String MEDIA_TYPE = "text/csv";
+    public static final String HEADER = "beerName,beerStyle,upc,quantityOnHand,price";
+    public static final String EXPORT_HEADER = HEADER + ",id,version,createdDate,lastModifiedDate";
+
+    private static final int COLUMNS = 5;
+
+    private BeerCsv() {
+    }
+
+    public static Beer parse(String line) {
+        List<String> fields = split(line);
+        if (fields.size() < COLUMNS) {
+            throw new IllegalArgumentException("Expected at least " + COLUMNS + " columns but got " + fields.size());
+        }
+        return Beer.builder()
+            .beerName(fields.get(0))
+            .beerStyle(fields.get(1).isEmpty() ? null : BeerStyleEnum.valueOf(fields.get(1)))
+            .upc(fields.get(2))
+            .quantityOnHand(fields.get(3).isEmpty() ? null : Integer.valueOf(fields.get(3)))
+            .price(fields.get(4).isEmpty() ? null : new BigDecimal(fields.get(4)))
+            .build();
+    }
+
+    public static String format(Beer beer) {
+        return String.join(",",
+            quote(beer.getBeerName()),
+            beer.getBeerStyle() == null ? "" : beer.getBeerStyle().name(),
+            quote(beer.getUpc()),
+            beer.getQuantityOnHand() == null ? "" : beer.getQuantityOnHand().toString(),
+            beer.getPrice() == null ? "" : beer.getPrice().toPlainString(),
+            beer.getId() == null ? "" : beer.getId().toString(),
+            beer.getVersion() == null ? "" : beer.getVersion().toString(),
+            beer.getCreatedDate() == null ? "" : beer.getCreatedDate().toInstant().toString(),
+            beer.getLastModifiedDate() == null ? "" : beer.getLastModifiedDate().toInstant().toString());
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\r') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @return true if the line has an odd number of quotes, i.e. it opens a quoted field that continues on the next line
+     * or closes one opened on a previous line
+     */
+    public static boolean togglesQuote(String line) {
+        boolean toggles = false;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                toggles = !toggles;
+            }
+        }
+        return toggles;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,68 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog while it is read from a database cursor. Every beer is detached once written, so memory use
+ * doesn't depend on the size of the catalog.
+ */
+@Service
+@Slf4j
+public class BeerExportService {
+
+    private final BeerRepository beerRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BeerExportService(BeerRepository beerRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.beerRepository = beerRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param since only beers modified at or after this time, ordered by modification; all beers ordered by id when null
+     */
+    public long export(OutputStream outputStream, BeerCatalogFormat format, Timestamp since) {
+        AtomicLong exported = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try (Stream<Beer> beers = since == null
+                ? beerRepository.streamAllByOrderByIdAsc()
+                : beerRepository.streamAllByLastModifiedDateGreaterThanEqualOrderByLastModifiedDateAsc(since)) {
+                if (format == BeerCatalogFormat.CSV) {
+                    writer.write(BeerCsv.EXPORT_HEADER);
+                    writer.write('\n');
+                }
+                for (Beer beer : (Iterable<Beer>) beers::iterator) {
+                    writer.write(format == BeerCatalogFormat.CSV ? BeerCsv.format(beer) : objectMapper.writeValueAsString(beer));
+                    writer.write('\n');
+                    entityManager.detach(beer);
+                    exported.incrementAndGet();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} beers as {}", exported.get(), format);
+        return exported.get();
+    }
+}
@@ -0,0 +1,22 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+
+/**
+ * One NDJSON line of an import. Other properties (id, version, dates of an export) are ignored.
+ */
+public record BeerImportLine(String beerName, BeerStyleEnum beerStyle, String upc, Integer quantityOnHand, BigDecimal price) {
+
+    public Beer toBeer() {
+        return Beer.builder()
+            .beerName(beerName)
+            .beerStyle(beerStyle)
+            .upc(upc)
+            .quantityOnHand(quantityOnHand)
+            .price(price)
+            .build();
+    }
+}
@@ -0,0 +1,27 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "beer.import")
+@Data
+public class BeerImportProperties {
+
+    /**
+     * Rows committed per transaction. A failing chunk is rolled back as a whole and reported, the import continues.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Errors listed per chunk at most, the remaining ones are only counted.
+     */
+    private int maxErrorsPerChunk = 100;
+
+    /**
+     * Lines a csv record may span with quoted line breaks. A quote still open after them (or at the end of the body) is
+     * reported as an error of the record's first line, and the import continues with the line after it.
+     */
+    private int maxRecordLines = 10;
+}
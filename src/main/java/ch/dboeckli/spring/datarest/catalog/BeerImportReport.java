@@ -0,0 +1,19 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import java.util.List;
+
+/**
+ * Outcome of an import. Only chunks with errors are listed.
+ *
+ * @param imported lines written, inserted or updated
+ * @param updated  lines that updated the beer stored under their upc
+ */
+public record BeerImportReport(long imported, long updated, long rejected, int chunks, List<ChunkResult> failedChunks) {
+
+    /**
+     * @param committed false if the whole chunk was rolled back by the database
+     */
+    public record ChunkResult(int chunk, long firstLine, long lastLine, boolean committed, int imported, int updated, long rejected,
+                              List<String> errors) {
+    }
+}
@@ -0,0 +1,214 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads an import record by record and commits it in chunks of {@code beer.import.chunk-size}, so neither the body
+ * nor the persistence context grow with the size of the catalog. Lines with a stored upc update that beer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BeerImportService {
+
+    private final BeerChunkPersister beerChunkPersister;
+    private final BeerImportProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public BeerImportReport importBeers(InputStream body, BeerCatalogFormat format) throws IOException {
+        Function<String, Beer> parser = format == BeerCatalogFormat.CSV
+            ? BeerCsv::parse
+            : line -> objectMapper.readValue(line, BeerImportLine.class).toBeer();
+
+        Progress progress = new Progress();
+        Chunk chunk = new Chunk(1, 1);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Records records = new Records(reader, format == BeerCatalogFormat.CSV);
+            Record record;
+            while ((record = records.next()) != null) {
+                String line = record.text();
+                if (line.isBlank() || (format == BeerCatalogFormat.CSV && record.firstLine() == 1 && line.startsWith(BeerCsv.HEADER))) {
+                    continue;
+                }
+                if (record.error() != null) {
+                    chunk.reject(record.firstLine(), record.error());
+                } else {
+                    chunk.add(record.firstLine(), record.lastLine(), line, parser);
+                }
+                if (chunk.size() >= properties.getChunkSize()) {
+                    progress.add(commit(chunk));
+                    chunk = new Chunk(chunk.number + 1, record.lastLine() + 1);
+                }
+            }
+            if (chunk.size() > 0) {
+                progress.add(commit(chunk));
+            }
+        }
+        log.info("Imported {} beers ({} updated), rejected {} in {} chunks", progress.imported, progress.updated, progress.rejected,
+            progress.chunks);
+        return new BeerImportReport(progress.imported, progress.updated, progress.rejected, progress.chunks, progress.failedChunks);
+    }
+
+    private BeerImportReport.ChunkResult commit(Chunk chunk) {
+        try {
+            int updated = beerChunkPersister.upsert(chunk.beers);
+            return new BeerImportReport.ChunkResult(chunk.number, chunk.firstLine, chunk.lastLine, true,
+                chunk.beers.size(), updated, chunk.rejected, chunk.errors);
+        } catch (RuntimeException e) {
+            String message = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Import of lines {}-{} failed: {}", chunk.firstLine, chunk.lastLine, message);
+            List<String> errors = new ArrayList<>(chunk.errors);
+            errors.add(message);
+            return new BeerImportReport.ChunkResult(chunk.number, chunk.firstLine, chunk.lastLine, false,
+                0, 0, chunk.rejected + chunk.beers.size(), errors);
+        }
+    }
+
+    private static final class Progress {
+
+        private long imported;
+        private long updated;
+        private long rejected;
+        private int chunks;
+        private final List<BeerImportReport.ChunkResult> failedChunks = new ArrayList<>();
+
+        private void add(BeerImportReport.ChunkResult result) {
+            chunks++;
+            imported += result.imported();
+            updated += result.updated();
+            rejected += result.rejected();
+            if (!result.errors().isEmpty()) {
+                failedChunks.add(result);
+            }
+        }
+    }
+
+    private final class Chunk {
+
+        private final int number;
+        private final long firstLine;
+        private long lastLine;
+        private final List<Beer> beers = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long rejected;
+
+        private Chunk(int number, long firstLine) {
+            this.number = number;
+            this.firstLine = firstLine;
+        }
+
+        private long size() {
+            return beers.size() + rejected;
+        }
+
+        private void add(long lineNumber, long lastLineNumber, String line, Function<String, Beer> parser) {
+            lastLine = lastLineNumber;
+            try {
+                Beer beer = parser.apply(line);
+                validate(beer);
+                beers.add(beer);
+            } catch (RuntimeException e) {
+                reject(lineNumber, e.getMessage());
+            }
+        }
+
+        private void reject(long lineNumber, String message) {
+            lastLine = Math.max(lastLine, lineNumber);
+            rejected++;
+            if (errors.size() < properties.getMaxErrorsPerChunk()) {
+                errors.add("Line " + lineNumber + ": " + message);
+            }
+        }
+
+        private void validate(Beer beer) {
+            if (!StringUtils.hasText(beer.getBeerName())) {
+                throw new IllegalArgumentException("beerName is required");
+            }
+            if (beer.getBeerStyle() == null) {
+                throw new IllegalArgumentException("beerStyle is required");
+            }
+            if (!StringUtils.hasText(beer.getUpc())) {
+                throw new IllegalArgumentException("upc is required");
+            }
+        }
+    }
+
+    /**
+     * @param error why the record was not read, its text is then only the first line
+     */
+    private record Record(long firstLine, long lastLine, String text, String error) {
+    }
+
+    /**
+     * The records of the body, one per line. A csv record continues on the next lines while a quoted field is open, up
+     * to {@code beer.import.max-record-lines}; the quote state is tracked per line, so nothing is scanned twice.
+     */
+    private final class Records {
+
+        private final BufferedReader reader;
+        private final boolean csv;
+        private final Deque<String> unread = new ArrayDeque<>();
+        private long lineNumber;
+
+        private Records(BufferedReader reader, boolean csv) {
+            this.reader = reader;
+            this.csv = csv;
+        }
+
+        private Record next() throws IOException {
+            String line = readLine();
+            if (line == null) {
+                return null;
+            }
+            long firstLine = lineNumber;
+            if (!csv || !BeerCsv.togglesQuote(line)) {
+                return new Record(firstLine, firstLine, line, null);
+            }
+            List<String> continuation = new ArrayList<>();
+            StringBuilder text = new StringBuilder(line);
+            while (continuation.size() + 1 < properties.getMaxRecordLines()) {
+                String next = readLine();
+                if (next == null) {
+                    break;
+                }
+                continuation.add(next);
+                text.append('\n').append(next);
+                if (BeerCsv.togglesQuote(next)) {
+                    return new Record(firstLine, lineNumber, text.toString(), null);
+                }
+            }
+            // the lines read ahead are records of their own
+            for (int i = continuation.size() - 1; i >= 0; i--) {
+                unread.addFirst(continuation.get(i));
+            }
+            lineNumber = firstLine;
+            return new Record(firstLine, firstLine, line,
+                "quoted field not closed within " + properties.getMaxRecordLines() + " lines");
+        }
+
+        private String readLine() throws IOException {
+            String line = unread.isEmpty() ? reader.readLine() : unread.pollFirst();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+    }
+}
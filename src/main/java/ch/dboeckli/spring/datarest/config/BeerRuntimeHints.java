@@ -0,0 +1,69 @@
+package ch.dboeckli.spring.datarest.config;
+
+import ch.dboeckli.spring.datarest.catalog.BeerImportLine;
+import ch.dboeckli.spring.datarest.catalog.BeerImportReport;
+import ch.dboeckli.spring.datarest.controller.BeerInventoryController;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.feed.BeerChangeFeedEntry;
+import ch.dboeckli.spring.datarest.inventory.BeerInventoryAdjustment;
+import ch.dboeckli.spring.datarest.lookup.BeerBatch;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcEntry;
+import ch.dboeckli.spring.datarest.metrics.BeerStatementCounter;
+import ch.dboeckli.spring.datarest.paging.BeerKeysetPage;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import ch.dboeckli.spring.datarest.projection.BeerSummaryProjection;
+import ch.dboeckli.spring.datarest.search.BeerSearchResult;
+import ch.dboeckli.spring.datarest.stats.BeerPriceBucket;
+import ch.dboeckli.spring.datarest.stats.BeerStyleStats;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.BindingReflectionHintsRegistrar;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+/**
+ * What the native image cannot find by itself, because it is only referenced by name or created by a library:
+ * <ul>
+ *     <li>results of {@code select new ...} queries, instantiated by Hibernate</li>
+ *     <li>classes configured in {@code application.yaml} (statement inspector, JCache provider, region factory)</li>
+ *     <li>types Jackson reads or writes outside of controller signatures (import/export lines, change feed events)</li>
+ *     <li>the Spring Data REST excerpt projection, a JDK proxy</li>
+ *     <li>the Liquibase changelogs, the JCache configuration and the webjars</li>
+ * </ul>
+ * Spring AOT covers the rest: repositories and their projections, entities, controllers, configuration properties.
+ */
+public class BeerRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> result : new Class<?>[]{BeerSummary.class, BeerState.class, BeerUpcEntry.class, BeerPriceBucket.class}) {
+            hints.reflection().registerType(result, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+
+        hints.reflection().registerType(BeerStatementCounter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TypeReference.of("org.hibernate.cache.jcache.internal.JCacheRegionFactory"),
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+            Beer.class, BeerSummary.class, BeerImportLine.class, BeerImportReport.class, BeerChangedEvent.class,
+            BeerBulkChangedEvent.class, BeerChangeFeedEntry.class, BeerInventoryAdjustment.class,
+            BeerInventoryController.InventoryDelta.class, BeerInventoryController.InventoryLevel.class, BeerBatch.class,
+            BeerKeysetPage.class, BeerSearchResult.class, BeerStyleStats.class, BeerPriceBucket.class);
+
+        hints.proxies().registerJdkProxy(BeerSummaryProjection.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+
+        hints.resources()
+            .registerPattern("db/changelog/*.xml")
+            .registerPattern("caffeine-jcache.conf")
+            .registerPattern("META-INF/resources/webjars/**")
+            .registerPattern("META-INF/maven/org.webjars/*/pom.properties");
+    }
+}
@@ -43,6 +43,9 @@ public class SpringSecurityConfigRest {
                 .anyRequest().permitAll())
             .csrf(csrf -> csrf
                 .ignoringRequestMatchers("/h2-console/**") // CSRF-Schutz für H2-Console deaktivieren
+                .ignoringRequestMatchers("/internal/cache/**") // cache evictions posted by the other replicas
+                .ignoringRequestMatchers("/api/v4/beer/import") // bulk import of the nightly catalog sync
+                .ignoringRequestMatchers("/api/v4/beer/*/inventory") // stock movements posted by the POS terminals
             )
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .headers(headers -> headers
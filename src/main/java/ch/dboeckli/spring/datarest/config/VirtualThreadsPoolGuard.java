@@ -0,0 +1,83 @@
+package ch.dboeckli.spring.datarest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * With virtual threads there is no request thread pool limiting the concurrency anymore, every request may wait for a
+ * database connection. The Hikari pool then is the limit and has to be sized for the database, not for the number of
+ * requests: a large pool just moves the queue into the database, a long connection timeout lets requests pile up
+ * instead of failing fast. The startup fails if a pool (also the replica pool, see {@code beer.datasource.replica}) exceeds
+ * {@code beer.virtual-threads.*}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadsPoolGuard implements SmartInitializingSingleton {
+
+    private final Environment environment;
+    private final ObjectProvider<DataSource> dataSources;
+    private final PoolLimits poolLimits;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        // the routing data source unwraps to the primary pool, which is also a bean of its own
+        dataSources.orderedStream()
+            .map(VirtualThreadsPoolGuard::hikari)
+            .filter(Objects::nonNull)
+            .distinct()
+            .forEach(hikariDataSource -> verify(virtualThreads, hikariDataSource));
+    }
+
+    void verify(boolean virtualThreads, HikariDataSource hikariDataSource) {
+        int maximumPoolSize = hikariDataSource.getMaximumPoolSize();
+        Duration connectionTimeout = Duration.ofMillis(hikariDataSource.getConnectionTimeout());
+        log.info("Request threads: {}, connection pool {}: {} connections, connection timeout {}",
+            virtualThreads ? "virtual" : "platform", hikariDataSource.getPoolName(), maximumPoolSize, connectionTimeout);
+        if (!virtualThreads) {
+            return;
+        }
+        if (maximumPoolSize > poolLimits.getMaxPoolSize()) {
+            throw new IllegalStateException("maximum-pool-size of pool " + hikariDataSource.getPoolName() + " is " + maximumPoolSize
+                + " but at most " + poolLimits.getMaxPoolSize() + " with virtual threads (beer.virtual-threads.max-pool-size). "
+                + "Size the pool for the database (about 2 x cores of the database server), not for the number of requests.");
+        }
+        if (connectionTimeout.compareTo(poolLimits.getMaxConnectionTimeout()) > 0) {
+            throw new IllegalStateException("connection-timeout of pool " + hikariDataSource.getPoolName() + " is " + connectionTimeout
+                + " but at most " + poolLimits.getMaxConnectionTimeout() + " with virtual threads (beer.virtual-threads.max-connection-timeout), "
+                + "so an overloaded database fails requests fast instead of queueing them.");
+        }
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Component
+    @ConfigurationProperties(prefix = "beer.virtual-threads")
+    @Data
+    public static class PoolLimits {
+
+        private int maxPoolSize = 50;
+
+        private Duration maxConnectionTimeout = Duration.ofSeconds(10);
+    }
+}
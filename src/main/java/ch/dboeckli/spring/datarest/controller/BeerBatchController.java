@@ -0,0 +1,67 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.lookup.BeerBatch;
+import ch.dboeckli.spring.datarest.lookup.BeerBatchLookup;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Many beers in one request, e.g. all lines of an order: {@code ?ids=<id>,<id>} or {@code ?upcs=<upc>,<upc>}. The
+ * beers come in the order of the request, keys without a beer are listed in {@code missing}.
+ */
+@RepositoryRestController
+@RequiredArgsConstructor
+public class BeerBatchController {
+
+    public static final String BY_IDS_PATH = "/beer/search/byIds";
+    public static final String BY_UPCS_PATH = "/beer/search/byUpcs";
+    public static final LinkRelation BY_IDS_REL = LinkRelation.of("byIds");
+    public static final LinkRelation BY_UPCS_REL = LinkRelation.of("byUpcs");
+
+    private final BeerBatchLookup beerBatchLookup;
+    private final RepositoryEntityLinks entityLinks;
+
+    @GetMapping(BY_IDS_PATH)
+    public ResponseEntity<BeerBatchModel> byIds(@RequestParam List<UUID> ids, PersistentEntityResourceAssembler assembler) {
+        return ResponseEntity.ok(toModel(beerBatchLookup.byIds(ids), assembler));
+    }
+
+    @GetMapping(BY_UPCS_PATH)
+    public ResponseEntity<BeerBatchModel> byUpcs(@RequestParam List<String> upcs, PersistentEntityResourceAssembler assembler) {
+        return ResponseEntity.ok(toModel(beerBatchLookup.byUpcs(upcs), assembler));
+    }
+
+    Link searchLink(String search, String parameter, LinkRelation rel) {
+        String href = entityLinks.linkFor(Beer.class).slash("search").slash(search).toUri().toString();
+        return Link.of(href + "{?" + parameter + "}", rel);
+    }
+
+    private static BeerBatchModel toModel(BeerBatch batch, PersistentEntityResourceAssembler assembler) {
+        return new BeerBatchModel(batch.beers().stream().map(assembler::toModel).toList(), batch.missing());
+    }
+
+    @Getter
+    public static class BeerBatchModel extends CollectionModel<PersistentEntityResource> {
+
+        private final List<String> missing;
+
+        BeerBatchModel(List<PersistentEntityResource> beers, List<String> missing) {
+            super(beers, List.of(), null);
+            this.missing = missing;
+        }
+    }
+}
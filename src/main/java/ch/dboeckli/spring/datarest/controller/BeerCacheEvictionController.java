@@ -0,0 +1,50 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.cache.BeerL2CacheInvalidator;
+import ch.dboeckli.spring.datarest.cache.BeerL2CacheProperties;
+import ch.dboeckli.spring.datarest.cache.HttpBeerCacheInvalidationBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Receiving side of {@link HttpBeerCacheInvalidationBroadcaster}. Meant for the replicas only, not to be routed by an
+ * ingress; as the service exposes it anyway, every request has to carry the shared token.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "beer.l2-cache.invalidation", name = "mode", havingValue = "http")
+public class BeerCacheEvictionController {
+
+    private final BeerL2CacheInvalidator beerL2CacheInvalidator;
+    private final BeerL2CacheProperties beerL2CacheProperties;
+
+    @PostMapping(HttpBeerCacheInvalidationBroadcaster.EVICT_PATH)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evict(@RequestBody List<UUID> beerIds,
+                      @RequestHeader(name = HttpBeerCacheInvalidationBroadcaster.TOKEN_HEADER, required = false) String token) {
+        checkToken(token);
+        beerL2CacheInvalidator.evictLocally(beerIds);
+    }
+
+    @PostMapping(HttpBeerCacheInvalidationBroadcaster.EVICT_ALL_PATH)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evictAll(@RequestHeader(name = HttpBeerCacheInvalidationBroadcaster.TOKEN_HEADER, required = false) String token) {
+        checkToken(token);
+        beerL2CacheInvalidator.evictAllLocally();
+    }
+
+    private void checkToken(String token) {
+        byte[] expected = beerL2CacheProperties.getInvalidation().getToken().getBytes(StandardCharsets.UTF_8);
+        if (token == null || !MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid cache invalidation token");
+        }
+    }
+}
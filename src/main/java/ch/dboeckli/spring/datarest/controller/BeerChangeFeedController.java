@@ -0,0 +1,38 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.feed.BeerChangeFeedSubscriptions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events of the committed beer changes instead of polling {@code /api/v4/beer}. Every event has the
+ * change type as name ({@code created}, {@code updated}, {@code deleted}) and {@code <epoch>-<sequence>} as id;
+ * reconnecting with {@code Last-Event-ID} (or {@code ?since=}) resumes after that change. A {@code reset} event means
+ * the changes since are gone or the id was issued before a restart or by another replica, the client has to resync.
+ * Each replica streams the changes committed by itself only.
+ */
+@RestController
+@RequiredArgsConstructor
+public class BeerChangeFeedController {
+
+    public static final String CHANGES_PATH = "/api/v4/beer/changes";
+
+    private final BeerChangeFeedSubscriptions subscriptions;
+
+    @GetMapping(value = CHANGES_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                              @RequestParam(required = false) String since) {
+        SseEmitter emitter = subscriptions.subscribe(lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+        return emitter;
+    }
+}
@@ -0,0 +1,43 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+
+/**
+ * Replaces the collection resource of Spring Data REST for {@code GET /api/v4/beer}: same paging, sorting and HAL
+ * layout with {@link ch.dboeckli.spring.datarest.projection.BeerSummaryProjection} items, but read as {@link BeerSummary}
+ * instead of managed entities. Requests for another {@code projection} are still served by Spring Data REST.
+ */
+@RepositoryRestController
+@RequiredArgsConstructor
+public class BeerCollectionController {
+
+    private final BeerRepository beerRepository;
+    private final RepositoryEntityLinks entityLinks;
+
+    @GetMapping(path = "/beer", params = "!projection")
+    public ResponseEntity<PagedModel<EntityModel<BeerSummary>>> beers(Pageable pageable,
+                                                                     PagedResourcesAssembler<BeerSummary> pagedResourcesAssembler) {
+        Page<BeerSummary> page = beerRepository.findAllSummariesBy(pageable);
+        PagedModel<EntityModel<BeerSummary>> model = pagedResourcesAssembler.toModel(page, summary -> {
+            Link self = entityLinks.linkToItemResource(Beer.class, summary.getId());
+            return EntityModel.of(summary, self.withSelfRel(), self.withRel("beer"));
+        });
+        // the collection is <base path>/beer, its profile <base path>/profile/beer
+        model.add(Link.of(entityLinks.linkFor(Beer.class).toUri().resolve("profile/beer").toString(), "profile"));
+        model.add(entityLinks.linkFor(Beer.class).slash("search").withRel("search"));
+        return ResponseEntity.ok(model);
+    }
+}
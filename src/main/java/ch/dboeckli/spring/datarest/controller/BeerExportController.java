@@ -0,0 +1,42 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.catalog.BeerCatalogFormat;
+import ch.dboeckli.spring.datarest.catalog.BeerExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+
+/**
+ * Full or incremental export of the beer catalog in one response, for systems mirroring the catalog. The body is
+ * written on an async thread while the beers are read, see {@link BeerExportService}.
+ */
+@RestController
+@RequestMapping(BeerExportController.EXPORT_PATH)
+@RequiredArgsConstructor
+public class BeerExportController {
+
+    public static final String EXPORT_PATH = "/api/v4/beer/export";
+
+    private final BeerExportService beerExportService;
+
+    /**
+     * @param since ISO date time, e.g. the highest lastModifiedDate of the previous export
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "NDJSON") BeerCatalogFormat format,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime since) {
+        Timestamp sinceTimestamp = since == null ? null : Timestamp.from(since.toInstant());
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(format.mediaType()))
+            .body(outputStream -> beerExportService.export(outputStream, format, sinceTimestamp));
+    }
+}
@@ -0,0 +1,38 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.catalog.BeerCatalogFormat;
+import ch.dboeckli.spring.datarest.catalog.BeerCsv;
+import ch.dboeckli.spring.datarest.catalog.BeerImportReport;
+import ch.dboeckli.spring.datarest.catalog.BeerImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Bulk import of the beer catalog. The body is read from the servlet input stream directly instead of a
+ * {@code @RequestBody}, which would be buffered completely.
+ */
+@RestController
+@RequestMapping(BeerImportController.IMPORT_PATH)
+@RequiredArgsConstructor
+public class BeerImportController {
+
+    public static final String IMPORT_PATH = "/api/v4/beer/import";
+
+    private final BeerImportService beerImportService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public BeerImportReport importNdjson(HttpServletRequest request) throws IOException {
+        return beerImportService.importBeers(request.getInputStream(), BeerCatalogFormat.NDJSON);
+    }
+
+    @PostMapping(consumes = BeerCsv.MEDIA_TYPE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public BeerImportReport importCsv(HttpServletRequest request) throws IOException {
+        return beerImportService.importBeers(request.getInputStream(), BeerCatalogFormat.CSV);
+    }
+}
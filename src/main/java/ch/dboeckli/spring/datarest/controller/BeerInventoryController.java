@@ -0,0 +1,67 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.inventory.BeerInventoryAdjustment;
+import ch.dboeckli.spring.datarest.inventory.BeerInventoryCoalescer;
+import ch.dboeckli.spring.datarest.inventory.BeerInventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+/**
+ * Relative stock movements, e.g. {@code {"delta": -2}} for a sale. Unlike a PUT of the beer they don't need the
+ * current version and don't collide with concurrent movements of the same beer.
+ */
+@RestController
+@RequiredArgsConstructor
+public class BeerInventoryController {
+
+    public static final String INVENTORY_PATH = "/api/v4/beer/{beerId}/inventory";
+
+    private final BeerInventoryService beerInventoryService;
+    private final BeerInventoryCoalescer beerInventoryCoalescer;
+
+    /**
+     * @param coalesce accept the delta without waiting for it to be written (202), see {@link BeerInventoryCoalescer}
+     */
+    @PostMapping(INVENTORY_PATH)
+    public ResponseEntity<InventoryLevel> adjust(@PathVariable UUID beerId,
+                                                 @RequestBody InventoryDelta body,
+                                                 @RequestParam(defaultValue = "false") boolean coalesce) {
+        if (body.delta() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "delta must not be 0");
+        }
+        if (coalesce) {
+            if (!beerInventoryCoalescer.isEnabled()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coalescing is disabled (beer.inventory.coalesce.enabled)");
+            }
+            if (!beerInventoryCoalescer.add(beerId, body.delta())) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No beer " + beerId);
+            }
+            return ResponseEntity.accepted().build();
+        }
+
+        BeerInventoryAdjustment adjustment = beerInventoryService.adjust(beerId, body.delta());
+        return switch (adjustment.outcome()) {
+            case APPLIED -> ResponseEntity.ok()
+                .eTag("\"" + adjustment.beer().version() + "\"")
+                .body(InventoryLevel.of(adjustment.beer()));
+            case INSUFFICIENT_STOCK -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Not enough stock of beer " + beerId);
+            case NOT_FOUND -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No beer " + beerId);
+        };
+    }
+
+    public record InventoryDelta(int delta) {
+    }
+
+    public record InventoryLevel(UUID id, Integer quantityOnHand, Long version) {
+
+        static InventoryLevel of(BeerState beer) {
+            return new InventoryLevel(beer.id(), beer.quantityOnHand(), beer.version());
+        }
+    }
+}
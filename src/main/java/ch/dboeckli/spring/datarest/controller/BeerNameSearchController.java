@@ -0,0 +1,107 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.search.BeerNameIndex;
+import ch.dboeckli.spring.datarest.search.BeerSearchResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search-as-you-type on {@link BeerNameIndex}: the index ranks and pages the ids, only the beers of the requested page
+ * are loaded.
+ */
+@RepositoryRestController
+@RequiredArgsConstructor
+public class BeerNameSearchController {
+
+    public static final String BY_NAME_PATH = "/beer/search/byName";
+    public static final String BY_UPC_PREFIX_PATH = "/beer/search/byUpcPrefix";
+    public static final LinkRelation BY_NAME_REL = LinkRelation.of("byName");
+    public static final LinkRelation BY_UPC_PREFIX_REL = LinkRelation.of("byUpcPrefix");
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final BeerNameIndex beerNameIndex;
+    private final BeerRepository beerRepository;
+    private final RepositoryEntityLinks entityLinks;
+
+    @GetMapping(BY_NAME_PATH)
+    public ResponseEntity<PagedModel<PersistentEntityResource>> byName(@RequestParam String q,
+                                                                       @RequestParam(defaultValue = "0") int page,
+                                                                       @RequestParam(defaultValue = "20") int size,
+                                                                       PersistentEntityResourceAssembler assembler) {
+        validate(page, size);
+        BeerSearchResult result = beerNameIndex.searchByName(q, (long) page * size, size);
+        return ResponseEntity.ok(toModel(result, "byName", "q", q, page, size, assembler));
+    }
+
+    @GetMapping(BY_UPC_PREFIX_PATH)
+    public ResponseEntity<PagedModel<PersistentEntityResource>> byUpcPrefix(@RequestParam String upc,
+                                                                            @RequestParam(defaultValue = "0") int page,
+                                                                            @RequestParam(defaultValue = "20") int size,
+                                                                            PersistentEntityResourceAssembler assembler) {
+        validate(page, size);
+        BeerSearchResult result = beerNameIndex.searchByUpcPrefix(upc, (long) page * size, size);
+        return ResponseEntity.ok(toModel(result, "byUpcPrefix", "upc", upc, page, size, assembler));
+    }
+
+    Link searchLink(String search, String parameter, LinkRelation rel) {
+        String href = entityLinks.linkFor(Beer.class).slash("search").slash(search).toUri().toString();
+        return Link.of(href + "{?" + parameter + ",page,size}", rel);
+    }
+
+    private PagedModel<PersistentEntityResource> toModel(BeerSearchResult result, String search, String parameter, String value,
+                                                         int page, int size, PersistentEntityResourceAssembler assembler) {
+        Map<UUID, Beer> beersById = beerRepository.findAllById(result.ids()).stream()
+            .collect(Collectors.toMap(Beer::getId, Function.identity()));
+        List<PersistentEntityResource> beers = result.ids().stream()
+            .map(beersById::get)
+            .filter(Objects::nonNull)
+            .map(assembler::toModel)
+            .toList();
+
+        List<Link> links = new ArrayList<>();
+        links.add(pageLink(search, parameter, value, page, size, IanaLinkRelations.SELF));
+        if (page > 0) {
+            links.add(pageLink(search, parameter, value, page - 1, size, IanaLinkRelations.PREV));
+        }
+        if ((long) (page + 1) * size < result.total()) {
+            links.add(pageLink(search, parameter, value, page + 1, size, IanaLinkRelations.NEXT));
+        }
+        return PagedModel.of(beers, new PagedModel.PageMetadata(size, page, result.total()), links);
+    }
+
+    private Link pageLink(String search, String parameter, String value, int page, int size, LinkRelation rel) {
+        String href = UriComponentsBuilder.fromUri(entityLinks.linkFor(Beer.class).slash("search").slash(search).toUri())
+            .queryParam(parameter, value)
+            .queryParam("page", page)
+            .queryParam("size", size)
+            .encode()
+            .toUriString();
+        return Link.of(href, rel);
+    }
+
+    private static void validate(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.paging.BeerKeysetPage;
+import ch.dboeckli.spring.datarest.paging.BeerKeysetPager;
+import ch.dboeckli.spring.datarest.paging.BeerScrollOrder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RepositoryRestController
+@RequiredArgsConstructor
+public class BeerScrollController {
+
+    public static final String SCROLL_PATH = "/beer/search/scroll";
+    public static final LinkRelation SCROLL_REL = LinkRelation.of("scroll");
+
+    private final BeerKeysetPager beerKeysetPager;
+    private final RepositoryEntityLinks entityLinks;
+
+    @GetMapping(SCROLL_PATH)
+    public ResponseEntity<CollectionModel<PersistentEntityResource>> scroll(@RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "20") int size,
+                                                                            @RequestParam(defaultValue = "NAME") BeerScrollOrder order,
+                                                                            PersistentEntityResourceAssembler assembler) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be >= 1");
+        }
+        BeerKeysetPage page = beerKeysetPager.scroll(order, cursor, size);
+
+        List<Link> links = new ArrayList<>();
+        links.add(scrollLink(cursor, size, order, IanaLinkRelations.SELF));
+        if (page.nextCursor() != null) {
+            links.add(scrollLink(page.nextCursor(), size, order, IanaLinkRelations.NEXT));
+        }
+        List<PersistentEntityResource> beers = page.content().stream().map(assembler::toModel).toList();
+        return ResponseEntity.ok(CollectionModel.of(beers, links));
+    }
+
+    Link scrollLink(String cursor, int size, BeerScrollOrder order, LinkRelation rel) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(entityLinks.linkFor(Beer.class).slash("search").slash("scroll").toUri())
+            .queryParam("size", size)
+            .queryParam("order", order);
+        if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+        }
+        return Link.of(builder.toUriString(), rel);
+    }
+}
@@ -0,0 +1,32 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.paging.BeerScrollOrder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.webmvc.RepositorySearchesResource;
+import org.springframework.hateoas.server.RepresentationModelProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Advertises the custom search resources of {@link BeerScrollController} etc. under {@code /api/v4/beer/search}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerSearchLinksProcessor implements RepresentationModelProcessor<RepositorySearchesResource> {
+
+    private final BeerScrollController beerScrollController;
+    private final BeerNameSearchController beerNameSearchController;
+    private final BeerBatchController beerBatchController;
+
+    @Override
+    public RepositorySearchesResource process(RepositorySearchesResource model) {
+        if (Beer.class.equals(model.getDomainType())) {
+            model.add(beerScrollController.scrollLink(null, 20, BeerScrollOrder.NAME, BeerScrollController.SCROLL_REL));
+            model.add(beerNameSearchController.searchLink("byName", "q", BeerNameSearchController.BY_NAME_REL));
+            model.add(beerNameSearchController.searchLink("byUpcPrefix", "upc", BeerNameSearchController.BY_UPC_PREFIX_REL));
+            model.add(beerBatchController.searchLink("byIds", "ids", BeerBatchController.BY_IDS_REL));
+            model.add(beerBatchController.searchLink("byUpcs", "upcs", BeerBatchController.BY_UPCS_REL));
+        }
+        return model;
+    }
+}
@@ -0,0 +1,28 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.stats.BeerStyleStatistics;
+import ch.dboeckli.spring.datarest.stats.BeerStyleStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Count, stock and min/avg/max price per beer style for dashboards, from the incrementally maintained
+ * {@link BeerStyleStatistics} instead of a pass over the catalog.
+ */
+@RestController
+@RequiredArgsConstructor
+public class BeerStatisticsController {
+
+    public static final String STATS_PATH = "/api/v4/beer/stats";
+
+    private final BeerStyleStatistics beerStyleStatistics;
+
+    @GetMapping(value = STATS_PATH, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<BeerStyleStats> stats() {
+        return beerStyleStatistics.snapshot();
+    }
+}
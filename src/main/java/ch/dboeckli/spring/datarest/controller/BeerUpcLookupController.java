@@ -0,0 +1,41 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcEntry;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcIndex;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Scanner lookup: id, version, price and quantity on hand for a upc as plain json, answered from {@link BeerUpcIndex}
+ * without a database round trip or entity. Upcs the index does not cover are looked up in the database.
+ */
+@RestController
+@RequiredArgsConstructor
+public class BeerUpcLookupController {
+
+    public static final String UPC_PATH = "/api/v4/beer/upc/{upc}";
+
+    private final BeerUpcIndex beerUpcIndex;
+    private final BeerRepository beerRepository;
+
+    @GetMapping(value = UPC_PATH, produces = MediaType.APPLICATION_JSON_VALUE)
+    public String byUpc(@PathVariable String upc) {
+        BeerUpcEntry entry = beerUpcIndex.covers(upc) ? beerUpcIndex.lookup(upc) : fromDatabase(upc);
+        if (entry == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No beer with upc " + upc);
+        }
+        return entry.toJson();
+    }
+
+    private BeerUpcEntry fromDatabase(String upc) {
+        Beer beer = beerRepository.findByUpc(upc);
+        return beer == null ? null : new BeerUpcEntry(beer.getId(), beer.getUpc(), beer.getVersion(), beer.getPrice(), beer.getQuantityOnHand());
+    }
+}
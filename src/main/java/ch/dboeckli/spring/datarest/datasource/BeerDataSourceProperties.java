@@ -0,0 +1,51 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.datasource")
+@Data
+public class BeerDataSourceProperties {
+
+    private Replica replica = new Replica();
+
+    private ReadYourWrites readYourWrites = new ReadYourWrites();
+
+    @Data
+    public static class Replica {
+
+        /**
+         * Routes read-only transactions to the replica, its pool is configured with {@code beer.datasource.replica.hikari.*}.
+         */
+        private boolean enabled = false;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * After a committed beer change the dropped caches are refilled from the primary this long, so they don't keep
+         * rows the replica has not received yet. Other reads stay on the replica.
+         */
+        private Duration maxLag = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class ReadYourWrites {
+
+        private boolean enabled = true;
+
+        /**
+         * Reads of a client go to the primary this long after its last write.
+         */
+        private Duration window = Duration.ofSeconds(5);
+
+        private String cookieName = "BEER_PRIMARY";
+    }
+}
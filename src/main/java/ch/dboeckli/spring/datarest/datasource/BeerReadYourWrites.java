@@ -0,0 +1,47 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+/**
+ * Read-your-writes state of the request on the current thread, kept by {@link BeerReadYourWritesFilter}. Work outside
+ * of requests is never pinned.
+ */
+final class BeerReadYourWrites {
+
+    private static final ThreadLocal<BeerReadYourWrites> CURRENT = new ThreadLocal<>();
+
+    private final Runnable onFirstWrite;
+    private boolean pinned;
+    private boolean written;
+
+    private BeerReadYourWrites(boolean pinned, Runnable onFirstWrite) {
+        this.pinned = pinned;
+        this.onFirstWrite = onFirstWrite;
+    }
+
+    static void begin(boolean pinned, Runnable onFirstWrite) {
+        CURRENT.set(new BeerReadYourWrites(pinned, onFirstWrite));
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return true if read-only transactions of this request have to use the primary
+     */
+    static boolean isPinned() {
+        BeerReadYourWrites current = CURRENT.get();
+        return current != null && current.pinned;
+    }
+
+    /**
+     * This request committed a beer change, the following reads of the request and of its client use the primary.
+     */
+    static void written() {
+        BeerReadYourWrites current = CURRENT.get();
+        if (current != null && !current.written) {
+            current.written = true;
+            current.pinned = true;
+            current.onFirstWrite.run();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import ch.dboeckli.spring.datarest.web.BeerWebController;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+
+/**
+ * Keeps the reads of a client on the primary after its writes:
+ * <ul>
+ *     <li>requests other than {@code GET}, {@code HEAD} and {@code OPTIONS} only use the primary, also for the reads
+ *     before their write (the entity manager of a request holds on to its first connection)</li>
+ *     <li>a request committing a beer change answers with the cookie {@code cookie-name}, requests carrying it read from
+ *     the primary until {@code window} has passed</li>
+ *     <li>reads of the beer pages backed by caches ({@code /api/v4/beer}, its search resources and {@code /web/beers})
+ *     run as a {@link BeerRoutingDataSource#refill()} from their first statement on, so they use the primary within
+ *     {@code max-lag}; a scope opened later in the request would only get the connection already held</li>
+ * </ul>
+ * Writes applied later (write-behind, coalesced inventory changes) do not set the cookie. The cookie only decides
+ * between primary and replica, a forged one just moves the reads of its client to the primary.
+ */
+@Component
+@ConditionalOnProperty(prefix = "beer.datasource.replica", name = "enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 30)
+@RequiredArgsConstructor
+public class BeerReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final BeerDataSourceProperties properties;
+    private final RepositoryRestConfiguration repositoryRestConfiguration;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        BeerDataSourceProperties.ReadYourWrites readYourWrites = properties.getReadYourWrites();
+        boolean pinned = !isRead(request) || (readYourWrites.isEnabled() && hasWrittenRecently(request, readYourWrites));
+        BeerReadYourWrites.begin(pinned, () -> {
+            if (readYourWrites.isEnabled() && !response.isCommitted()) {
+                response.addHeader(HttpHeaders.SET_COOKIE, cookie(request, readYourWrites).toString());
+            }
+        });
+        try (var _ = refillsCaches(request) ? BeerRoutingDataSource.refill() : null) {
+            filterChain.doFilter(request, response);
+        } finally {
+            BeerReadYourWrites.end();
+        }
+    }
+
+    private boolean refillsCaches(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String collectionPath = repositoryRestConfiguration.getBasePath().getPath() + "/beer";
+        return path.equals(collectionPath) || path.startsWith(collectionPath + "/search/")
+            || path.equals(BeerWebController.WEB_BASE_PATH + "/" + BeerWebController.BEERS_TEMPLATE);
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+            || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    private static boolean hasWrittenRecently(HttpServletRequest request, BeerDataSourceProperties.ReadYourWrites readYourWrites) {
+        Cookie cookie = WebUtils.getCookie(request, readYourWrites.getCookieName());
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static ResponseCookie cookie(HttpServletRequest request, BeerDataSourceProperties.ReadYourWrites readYourWrites) {
+        long primaryUntil = System.currentTimeMillis() + readYourWrites.getWindow().toMillis();
+        return ResponseCookie.from(readYourWrites.getCookieName(), String.valueOf(primaryUntil))
+            .path(StringUtils.hasText(request.getContextPath()) ? request.getContextPath() : "/")
+            .maxAge(readYourWrites.getWindow())
+            .httpOnly(true)
+            .sameSite("Lax")
+            .build();
+    }
+}
@@ -0,0 +1,133 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read-only transactions use the replica, everything else the primary. Read-only transactions stay on the primary
+ * <ul>
+ *     <li>for requests of a client that has just written, see {@link BeerReadYourWritesFilter}</li>
+ *     <li>when they refill a cache within {@code max-lag} after a committed beer change of this or another replica, see
+ *     {@link #refill()} and {@link #changed()}</li>
+ * </ul>
+ * Other reads within {@code max-lag} use the replica but don't put what they load into the second level cache.
+ */
+public class BeerRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> REFILLING = new ThreadLocal<>();
+
+    private final long maxLagMillis;
+    private volatile long refillFromPrimaryUntil;
+
+    public BeerRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource, Duration maxLag) {
+        this.maxLagMillis = maxLag.toMillis();
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primaryDataSource, Target.REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return target();
+    }
+
+    Target target() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || BeerReadYourWrites.isPinned()) {
+            return Target.PRIMARY;
+        }
+        if (System.currentTimeMillis() < refillFromPrimaryUntil) {
+            if (REFILLING.get() != null) {
+                return Target.PRIMARY;
+            }
+            withoutSecondLevelCachePuts();
+        }
+        return Target.REPLICA;
+    }
+
+    /**
+     * Marks the reads of the current thread as loading a cache entry until the returned scope is closed. Only
+     * connections taken within the scope are routed by it; the entity manager of a request keeps its first connection
+     * (open in view), so {@link BeerReadYourWritesFilter} opens the scope for the cache-backed pages as a whole.
+     */
+    public static Refill refill() {
+        boolean nested = REFILLING.get() != null;
+        REFILLING.set(Boolean.TRUE);
+        return new Refill(nested);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        BeerReadYourWrites.written();
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        BeerReadYourWrites.written();
+        changed();
+    }
+
+    /**
+     * A beer change was committed on the primary, the caches dropping it are refilled from the primary until the replica
+     * has caught up.
+     */
+    public void changed() {
+        refillFromPrimaryUntil = System.currentTimeMillis() + maxLagMillis;
+    }
+
+    /**
+     * The replica may still return rows older than the entities just evicted, they must not be put back.
+     */
+    private static void withoutSecondLevelCachePuts() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                Session session = holder.getEntityManager().unwrap(Session.class);
+                CacheMode cacheMode = session.getCacheMode();
+                if (cacheMode.isPutEnabled()) {
+                    session.setCacheMode(CacheMode.GET);
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (session.isOpen()) {
+                                session.setCacheMode(cacheMode);
+                            }
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    public static final class Refill implements AutoCloseable {
+
+        private final boolean nested;
+
+        private Refill(boolean nested) {
+            this.nested = nested;
+        }
+
+        @Override
+        public void close() {
+            if (!nested) {
+                REFILLING.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured pool by two pools, {@code primary} ({@code spring.datasource.*}) and {@code replica}
+ * ({@code beer.datasource.replica.*}), behind one {@link BeerRoutingDataSource}. Both pools report the Hikari meters
+ * ({@code hikaricp.connections.*}) tagged with their pool name.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "beer.datasource.replica", name = "enabled", havingValue = "true")
+public class BeerRoutingDataSourceConfiguration {
+
+    public static final String PRIMARY_POOL = "primary";
+    public static final String REPLICA_POOL = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY_POOL);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("beer.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(BeerDataSourceProperties properties) {
+        BeerDataSourceProperties.Replica replica = properties.getReplica();
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(replica.getUrl())
+            .username(replica.getUsername())
+            .password(replica.getPassword())
+            .build();
+        dataSource.setPoolName(REPLICA_POOL);
+        return dataSource;
+    }
+
+    @Bean
+    public BeerRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                   @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                   BeerDataSourceProperties properties) {
+        return new BeerRoutingDataSource(primaryDataSource, replicaDataSource, properties.getReplica().getMaxLag());
+    }
+
+    /**
+     * The pool is chosen when the first statement runs, after the transaction and its read-only flag have begun.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(BeerRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -1,8 +1,11 @@
 package ch.dboeckli.spring.datarest.entity;
 
 import jakarta.persistence.*;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.*;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
@@ -16,8 +19,22 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Beer.CACHE_REGION)
+@Table(
+    name = "beer",
+    uniqueConstraints = @UniqueConstraint(name = "uk_beer_upc", columnNames = "upc"),
+    indexes = {
+        @Index(name = "idx_beer_style", columnList = "beer_style"),
+        @Index(name = "idx_beer_name_style", columnList = "beer_name, beer_style"),
+        @Index(name = "idx_beer_created_date_id", columnList = "created_date, id"),
+        @Index(name = "idx_beer_last_modified_date", columnList = "last_modified_date")
+    }
+)
 public class Beer {
 
+    public static final String CACHE_REGION = "beer";
+
     @Id
     @GeneratedValue(generator = "UUID")
     @UuidGenerator
@@ -0,0 +1,46 @@
+package ch.dboeckli.spring.datarest.etag;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Counts the beer changes seen by this instance: the committed local ones, including write-behind flushes, and the
+ * evictions forwarded by the other replicas. The weak ETags of the collection and search resources are built from it
+ * instead of querying the table. The start time is part of the ETag, so a restarted instance or another replica never
+ * confirms an ETag it did not issue.
+ */
+@Component
+public class BeerCollectionGeneration {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong generation = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        changed();
+    }
+
+    public void changed() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * @param resource path and query string, pages and searches of the same generation get different ETags
+     */
+    public String eTag(String resource) {
+        CRC32 crc = new CRC32();
+        crc.update(resource.getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + epoch + "-" + generation.get() + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+}
@@ -0,0 +1,124 @@
+package ch.dboeckli.spring.datarest.etag;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.web.BeerWebController;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers conditional GETs on beers before any entity is loaded or serialized:
+ * <ul>
+ *     <li>{@code /api/v4/beer/{id}}: strong ETag {@code "<version>"}, the same value Spring Data REST sends with the item</li>
+ *     <li>{@code /web/beer/{id}}: strong ETag {@code "web-<version>"}, it is a different representation; sent by
+ *     {@link BeerWebController}</li>
+ *     <li>{@code /api/v4/beer} and {@code /api/v4/beer/search/*}: weak ETag from {@link BeerCollectionGeneration} and the
+ *     path and query, weak because the page content also depends on the negotiated media type</li>
+ * </ul>
+ * The version of an item is only queried when the request carries {@code If-None-Match}; if the ETag doesn't match, the
+ * request proceeds as usual. {@code beer.etag.enabled=false} turns the filter off.
+ */
+@Component
+@ConditionalOnProperty(prefix = "beer.etag", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@RequiredArgsConstructor
+@Slf4j
+public class BeerConditionalRequestFilter extends OncePerRequestFilter {
+
+    private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern WEB_ITEM = Pattern.compile(BeerWebController.BEER_PAGE + "/(" + UUID_PATTERN + ")");
+
+    private final BeerRepository beerRepository;
+    private final BeerCollectionGeneration beerCollectionGeneration;
+    private final RepositoryRestConfiguration repositoryRestConfiguration;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String collectionPath = repositoryRestConfiguration.getBasePath().getPath() + "/beer";
+        String itemPrefix = collectionPath + "/";
+        String searchPrefix = collectionPath + "/search/";
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        Optional<String> eTag = Optional.empty();
+        boolean collection = false;
+        Matcher webItem = WEB_ITEM.matcher(path);
+        if (path.equals(collectionPath) || isSearchResource(path, searchPrefix)) {
+            String query = request.getQueryString();
+            eTag = Optional.of(beerCollectionGeneration.eTag(query == null ? path : path + "?" + query));
+            collection = true;
+        } else if (!StringUtils.hasText(ifNoneMatch)) {
+            filterChain.doFilter(request, response);
+            return;
+        } else if (webItem.matches()) {
+            eTag = beerRepository.findVersionById(UUID.fromString(webItem.group(1))).map(version -> "\"web-" + version + "\"");
+        } else if (path.startsWith(itemPrefix) && UUID_PATTERN.matcher(path.substring(itemPrefix.length())).matches()) {
+            eTag = beerRepository.findVersionById(UUID.fromString(path.substring(itemPrefix.length()))).map(version -> "\"" + version + "\"");
+        }
+
+        if (eTag.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (matches(ifNoneMatch, eTag.get())) {
+            log.debug("Not modified: {} {}", path, eTag.get());
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, eTag.get());
+            return;
+        }
+        if (collection) {
+            // the items get theirs from Spring Data REST and BeerWebController
+            response.setHeader(HttpHeaders.ETAG, eTag.get());
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isSearchResource(String path, String searchPrefix) {
+        return path.startsWith(searchPrefix) && path.length() > searchPrefix.length() && path.indexOf('/', searchPrefix.length()) < 0;
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match (RFC 9110, 13.1.2).
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        String opaqueTag = stripWeak(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
@@ -0,0 +1,12 @@
+package ch.dboeckli.spring.datarest.event;
+
+import java.util.List;
+
+/**
+ * Published once per chunk by bulk writers instead of one {@link BeerChangedEvent} per row, so listeners drop their
+ * caches and pin the primary once. Listeners keeping per beer state apply the changes in order.
+ *
+ * @param changes the rows written, in write order
+ */
+public record BeerBulkChangedEvent(List<BeerChangedEvent> changes) {
+}
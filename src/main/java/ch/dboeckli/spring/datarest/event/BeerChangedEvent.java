@@ -0,0 +1,30 @@
+package ch.dboeckli.spring.datarest.event;
+
+import java.util.UUID;
+
+/**
+ * Published for every insert, update and delete of a beer, whichever path wrote it (Spring Data REST, web forms,
+ * bulk operations). Consume it with {@code @TransactionalEventListener(fallbackExecution = true)} to only see
+ * committed changes.
+ *
+ * @param previous state before the change, {@code null} on create or when the writer did not load the row
+ * @param current  state after the change, {@code null} on delete
+ */
+public record BeerChangedEvent(ChangeType type, UUID beerId, BeerState previous, BeerState current) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static BeerChangedEvent created(BeerState current) {
+        return new BeerChangedEvent(ChangeType.CREATED, current.id(), null, current);
+    }
+
+    public static BeerChangedEvent updated(BeerState previous, BeerState current) {
+        return new BeerChangedEvent(ChangeType.UPDATED, current.id(), previous, current);
+    }
+
+    public static BeerChangedEvent deleted(UUID beerId, BeerState previous) {
+        return new BeerChangedEvent(ChangeType.DELETED, beerId, previous, null);
+    }
+}
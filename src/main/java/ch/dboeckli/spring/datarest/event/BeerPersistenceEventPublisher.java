@@ -0,0 +1,95 @@
+package ch.dboeckli.spring.datarest.event;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Bridges Hibernate's post insert/update/delete events for {@link Beer} to {@link BeerChangedEvent}s. Hooking into
+ * Hibernate instead of the Spring Data REST repository events also covers the web forms and all internal writers.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BeerPersistenceEventPublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final ThreadLocal<List<BeerChangedEvent>> COLLECTED = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        log.info("### Registered beer persistence event listeners");
+    }
+
+    /**
+     * Runs {@code work} with the events of its flushes added to {@code changes} instead of being published, for bulk
+     * writers publishing one {@link BeerBulkChangedEvent}.
+     */
+    public <T> T collecting(List<BeerChangedEvent> changes, Supplier<T> work) {
+        List<BeerChangedEvent> outer = COLLECTED.get();
+        COLLECTED.set(changes);
+        try {
+            return work.get();
+        } finally {
+            COLLECTED.set(outer);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Beer beer) {
+            publish(BeerChangedEvent.created(BeerState.of(beer)));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Beer beer) {
+            BeerState previous = BeerState.of(beer.getId(), event.getPersister().getPropertyNames(), event.getOldState());
+            publish(BeerChangedEvent.updated(previous, BeerState.of(beer)));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Beer) {
+            UUID id = (UUID) event.getId();
+            BeerState previous = BeerState.of(id, event.getPersister().getPropertyNames(), event.getDeletedState());
+            publish(BeerChangedEvent.deleted(id, previous));
+        }
+    }
+
+    private void publish(BeerChangedEvent event) {
+        List<BeerChangedEvent> changes = COLLECTED.get();
+        if (changes != null) {
+            changes.add(event);
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package ch.dboeckli.spring.datarest.event;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a beer row, safe to hand over to listeners running after the transaction.
+ */
+public record BeerState(UUID id,
+                        Long version,
+                        String beerName,
+                        BeerStyleEnum beerStyle,
+                        String upc,
+                        Integer quantityOnHand,
+                        BigDecimal price,
+                        Timestamp lastModifiedDate) {
+
+    public static BeerState of(Beer beer) {
+        return new BeerState(beer.getId(), beer.getVersion(), beer.getBeerName(), beer.getBeerStyle(), beer.getUpc(),
+            beer.getQuantityOnHand(), beer.getPrice(), beer.getLastModifiedDate());
+    }
+
+    /**
+     * Builds a snapshot from a Hibernate property state array (old or deleted state), which does not contain the id.
+     */
+    public static BeerState of(UUID id, String[] propertyNames, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        Beer beer = new Beer();
+        beer.setId(id);
+        for (int i = 0; i < propertyNames.length; i++) {
+            switch (propertyNames[i]) {
+                case "version" -> beer.setVersion((Long) state[i]);
+                case "beerName" -> beer.setBeerName((String) state[i]);
+                case "beerStyle" -> beer.setBeerStyle((BeerStyleEnum) state[i]);
+                case "upc" -> beer.setUpc((String) state[i]);
+                case "quantityOnHand" -> beer.setQuantityOnHand((Integer) state[i]);
+                case "price" -> beer.setPrice((BigDecimal) state[i]);
+                case "lastModifiedDate" -> beer.setLastModifiedDate((Timestamp) state[i]);
+                default -> {
+                    // createdDate is not part of the snapshot
+                }
+            }
+        }
+        return of(beer);
+    }
+}
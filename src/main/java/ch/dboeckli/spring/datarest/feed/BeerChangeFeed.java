@@ -0,0 +1,130 @@
+package ch.dboeckli.spring.datarest.feed;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ring buffer of the last {@code beer.change-feed.capacity} committed beer changes, numbered with a sequence. The
+ * writer only stores the entry and wakes the waiting readers; every subscriber reads at its own pace from its own
+ * position, so a slow subscriber never holds up the writer or the other subscribers. A reader whose position was
+ * overwritten gets {@link Batch#gap()} and has to resync.
+ * <p>
+ * Sequences start at 1 in every process, the event ids handed out to clients are prefixed with a random epoch of this
+ * process ({@link #eventId}), so an id from before a restart or from another replica is recognized as unknown instead
+ * of being resumed at the wrong place. Only changes committed by this process are in the feed.
+ */
+@Component
+public class BeerChangeFeed {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final BeerChangeFeedEntry[] entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long nextSequence = 1;
+
+    public BeerChangeFeed(BeerChangeFeedProperties properties) {
+        this.entries = new BeerChangeFeedEntry[properties.getCapacity()];
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        onBeersChanged(new BeerBulkChangedEvent(List.of(event)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        lock.lock();
+        try {
+            for (BeerChangedEvent change : event.changes()) {
+                long sequence = nextSequence++;
+                entries[(int) (sequence % entries.length)] = new BeerChangeFeedEntry(sequence, change.type(), change.beerId(), change.current());
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code <epoch>-<sequence>}
+     */
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence of an id from {@link #eventId}, -1 if it was issued by another process or is malformed
+     */
+    public long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the sequence the next change will get, a new subscriber without a position starts there
+     */
+    public long nextSequence() {
+        lock.lock();
+        try {
+            return nextSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code max} changes from {@code sequence} on, waiting up to {@code timeout} if there are none yet.
+     *
+     * @return the changes, empty after the timeout; {@link Batch#gap()} if changes from {@code sequence} on are no
+     * longer (or not: the sequence is unknown, 0) in the buffer
+     */
+    public Batch read(long sequence, int max, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long oldest = Math.max(1, nextSequence - entries.length);
+            if (sequence < oldest || sequence > nextSequence) {
+                return Batch.GAP;
+            }
+            long nanos = timeout.toNanos();
+            while (sequence == nextSequence) {
+                if (nanos <= 0) {
+                    return Batch.EMPTY;
+                }
+                nanos = appended.awaitNanos(nanos);
+            }
+            if (sequence < nextSequence - entries.length) {
+                return Batch.GAP;
+            }
+            int count = (int) Math.min(max, nextSequence - sequence);
+            List<BeerChangeFeedEntry> batch = new ArrayList<>(count);
+            for (long next = sequence; next < sequence + count; next++) {
+                batch.add(entries[(int) (next % entries.length)]);
+            }
+            return new Batch(batch, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public record Batch(List<BeerChangeFeedEntry> entries, boolean gap) {
+
+        static final Batch EMPTY = new Batch(List.of(), false);
+        static final Batch GAP = new Batch(List.of(), true);
+    }
+}
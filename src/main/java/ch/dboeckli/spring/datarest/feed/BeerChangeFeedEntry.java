@@ -0,0 +1,13 @@
+package ch.dboeckli.spring.datarest.feed;
+
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+
+import java.util.UUID;
+
+/**
+ * @param sequence position in the feed of this process, starting at 1; the event id adds the epoch of the process
+ * @param beer     state after the change, {@code null} for deletes
+ */
+public record BeerChangeFeedEntry(long sequence, BeerChangedEvent.ChangeType type, UUID beerId, BeerState beer) {
+}
@@ -0,0 +1,30 @@
+package ch.dboeckli.spring.datarest.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.change-feed")
+@Data
+public class BeerChangeFeedProperties {
+
+    /**
+     * Changes kept for resuming subscribers, a subscriber falling further behind is dropped.
+     */
+    private int capacity = 4096;
+
+    private int maxSubscribers = 1000;
+
+    /**
+     * A comment is sent after this long without changes, it keeps proxies from closing the connection.
+     */
+    private Duration heartbeat = Duration.ofSeconds(15);
+
+    /**
+     * Subscriptions are closed after this long, clients reconnect with {@code Last-Event-ID}.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+}
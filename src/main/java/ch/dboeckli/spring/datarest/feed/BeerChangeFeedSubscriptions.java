@@ -0,0 +1,104 @@
+package ch.dboeckli.spring.datarest.feed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams {@link BeerChangeFeed} to SSE subscribers, one virtual thread per subscriber: a subscriber whose connection
+ * is slow only blocks its own thread in the socket write while the feed moves on. Falling more than
+ * {@code beer.change-feed.capacity} changes behind ends the subscription with a {@code reset} event.
+ */
+@Component
+@Slf4j
+public class BeerChangeFeedSubscriptions {
+
+    static final String RESET_EVENT = "reset";
+    private static final int MAX_BATCH = 256;
+
+    private final BeerChangeFeed beerChangeFeed;
+    private final BeerChangeFeedProperties properties;
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("beer-change-feed-", 0).factory());
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter lagging;
+
+    public BeerChangeFeedSubscriptions(BeerChangeFeed beerChangeFeed, BeerChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.beerChangeFeed = beerChangeFeed;
+        this.properties = properties;
+        this.lagging = meterRegistry.counter("beer.change.feed.dropped", "reason", "lagging");
+        meterRegistry.gauge("beer.change.feed.subscribers", subscribers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * @param lastEventId id of the last change the subscriber has seen, {@code null} to only get changes from now on; an
+     *                    id of another process or from before a restart gets a {@code reset} right away
+     * @return {@code null} if there are {@code beer.change-feed.max-subscribers} already
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscribers.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        long from = lastEventId == null ? beerChangeFeed.nextSequence() : Math.max(0, beerChangeFeed.sequenceOf(lastEventId) + 1);
+        Future<?> sender = senders.submit(() -> {
+            try {
+                stream(emitter, from);
+            } finally {
+                subscribers.decrementAndGet();
+            }
+        });
+        emitter.onCompletion(() -> sender.cancel(true));
+        emitter.onTimeout(() -> sender.cancel(true));
+        emitter.onError(error -> sender.cancel(true));
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, long from) {
+        long sequence = from;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                BeerChangeFeed.Batch batch = beerChangeFeed.read(sequence, MAX_BATCH, properties.getHeartbeat());
+                if (batch.gap()) {
+                    lagging.increment();
+                    emitter.send(SseEmitter.event().name(RESET_EVENT).data(sequence == 0
+                        ? "Unknown event id, the feed was restarted or belongs to another replica"
+                        : "Changes from " + beerChangeFeed.eventId(sequence) + " on are no longer available"));
+                    emitter.complete();
+                    return;
+                }
+                if (batch.entries().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                for (BeerChangeFeedEntry entry : batch.entries()) {
+                    emitter.send(SseEmitter.event()
+                        .id(beerChangeFeed.eventId(entry.sequence()))
+                        .name(entry.type().name().toLowerCase())
+                        .data(entry, MediaType.APPLICATION_JSON));
+                    sequence = entry.sequence() + 1;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // the subscriber is gone or the emitter completed
+            log.debug("Change feed subscriber gone at sequence {}: {}", sequence, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ch.dboeckli.spring.datarest.guard;
+
+import ch.dboeckli.spring.datarest.controller.BeerScrollController;
+import ch.dboeckli.spring.datarest.paging.BeerScrollOrder;
+import ch.dboeckli.spring.datarest.web.BeerListStreamer;
+import ch.dboeckli.spring.datarest.web.BeerWebController;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps single requests from reading arbitrarily many beers, before any controller runs:
+ * <ul>
+ *     <li>page sizes above {@code max-page-size} of the endpoint are reduced to it</li>
+ *     <li>large pages are downgraded to the cheaper mode of the endpoint: first pages of {@code /api/v4/beer} are
+ *     redirected to the keyset scroll resource, {@code /web/beers} streams its rows (see {@link BeerListStreamer})</li>
+ *     <li>requests reading at least {@code rows-per-token} rows (offset plus page size) spend tokens of the client's
+ *     bucket, see {@link BeerRateLimiter}; without enough tokens they are answered with {@code 429 Too Many Requests}</li>
+ * </ul>
+ * Every clamped, downgraded or rejected request is counted as {@code beer.cost.guard{endpoint, action}}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@RequiredArgsConstructor
+@Slf4j
+public class BeerCostGuardFilter extends OncePerRequestFilter {
+
+    static final String METER = "beer.cost.guard";
+
+    private static final int DEFAULT_WEB_PAGE_SIZE = 25;
+
+    private final BeerCostGuardProperties properties;
+    private final BeerRateLimiter beerRateLimiter;
+    private final BeerListStreamer beerListStreamer;
+    private final RepositoryRestConfiguration repositoryRestConfiguration;
+    private final MeterRegistry meterRegistry;
+
+    enum Endpoint {
+        WEB, COLLECTION, SEARCH, SCROLL
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !HttpMethod.GET.matches(request.getMethod()) || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        Endpoint endpoint = endpoint(request);
+        BeerCostGuardProperties.Limits limits = limits(endpoint);
+        int page = parameter(request, "page", 0);
+        int size = parameter(request, "size", endpoint == Endpoint.WEB ? DEFAULT_WEB_PAGE_SIZE : repositoryRestConfiguration.getDefaultPageSize());
+        if (page < 0 || size <= 0) {
+            // invalid paging is answered by the endpoint itself
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (size > limits.getMaxPageSize()) {
+            log.debug("Reducing page size {} of {} to {}", size, request.getRequestURI(), limits.getMaxPageSize());
+            size = limits.getMaxPageSize();
+            request = new PageSizeRequest(request, size);
+            count(endpoint, "clamped");
+        }
+
+        if (endpoint == Endpoint.COLLECTION && isDowngraded(limits, size) && page == 0
+            && request.getParameter("sort") == null && request.getParameter("projection") == null) {
+            String scroll = UriComponentsBuilder.fromPath(request.getContextPath())
+                .path(repositoryRestConfiguration.getBasePath().getPath())
+                .path(BeerScrollController.SCROLL_PATH)
+                .queryParam("size", size)
+                .queryParam("order", BeerScrollOrder.CREATED)
+                .toUriString();
+            count(endpoint, "downgraded");
+            response.setStatus(HttpStatus.SEE_OTHER.value());
+            response.setHeader(HttpHeaders.LOCATION, scroll);
+            return;
+        }
+
+        boolean offset = endpoint != Endpoint.SCROLL && request.getParameter("cursor") == null;
+        long rows = offset ? (long) page * size + size : size;
+        if (properties.getRateLimit().isEnabled() && rows >= properties.getRateLimit().getRowsPerToken()) {
+            long retryAfter = beerRateLimiter.tryAcquire(client(request), rows / properties.getRateLimit().getRowsPerToken());
+            if (retryAfter > 0) {
+                log.debug("Rejecting {} rows of {} for client {}, retry after {} ms", rows, request.getRequestURI(), client(request), retryAfter);
+                count(endpoint, "rejected");
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfter + 999) / 1000));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many expensive beer queries, use keyset scrolling");
+                return;
+            }
+        }
+
+        if (endpoint == Endpoint.WEB && offset && beerListStreamer.streams(size)) {
+            count(endpoint, "downgraded");
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Endpoint endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String collectionPath = repositoryRestConfiguration.getBasePath().getPath() + "/beer";
+        String searchPrefix = collectionPath + "/search/";
+        if (path.equals(BeerWebController.LIST_BEERS_PAGE)) {
+            return Endpoint.WEB;
+        } else if (path.equals(collectionPath)) {
+            return Endpoint.COLLECTION;
+        } else if (path.equals(repositoryRestConfiguration.getBasePath().getPath() + BeerScrollController.SCROLL_PATH)) {
+            return Endpoint.SCROLL;
+        } else if (path.startsWith(searchPrefix) && path.length() > searchPrefix.length() && path.indexOf('/', searchPrefix.length()) < 0) {
+            return Endpoint.SEARCH;
+        }
+        return null;
+    }
+
+    private BeerCostGuardProperties.Limits limits(Endpoint endpoint) {
+        return switch (endpoint) {
+            case WEB -> properties.getWeb();
+            case COLLECTION -> properties.getCollection();
+            case SEARCH -> properties.getSearch();
+            case SCROLL -> properties.getScroll();
+        };
+    }
+
+    private static boolean isDowngraded(BeerCostGuardProperties.Limits limits, int size) {
+        return limits.getDowngradeThreshold() > 0 && size >= limits.getDowngradeThreshold();
+    }
+
+    private String client(HttpServletRequest request) {
+        String header = properties.getRateLimit().getClientHeader();
+        if (StringUtils.hasText(header)) {
+            String value = request.getHeader(header);
+            if (StringUtils.hasText(value)) {
+                // first entry of a forwarded-for list is the original client
+                int comma = value.indexOf(',');
+                return (comma < 0 ? value : value.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void count(Endpoint endpoint, String action) {
+        meterRegistry.counter(METER, "endpoint", endpoint.name().toLowerCase(), "action", action).increment();
+    }
+
+    private static int parameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (!StringUtils.hasText(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The request with a reduced {@code size} parameter, also in the query string the self links are built from.
+     */
+    private static final class PageSizeRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, String[]> parameters;
+        private final String queryString;
+
+        private PageSizeRequest(HttpServletRequest request, int size) {
+            super(request);
+            Map<String, String[]> reduced = new LinkedHashMap<>(request.getParameterMap());
+            reduced.put("size", new String[]{String.valueOf(size)});
+            this.parameters = Collections.unmodifiableMap(reduced);
+            this.queryString = request.getQueryString() == null ? null : UriComponentsBuilder.newInstance()
+                .query(request.getQueryString())
+                .replaceQueryParam("size", size)
+                .build()
+                .getQuery();
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return values == null || values.length == 0 ? null : values[0];
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return parameters.get(name);
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return parameters;
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+
+        @Override
+        public String getQueryString() {
+            return queryString;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ch.dboeckli.spring.datarest.guard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "beer.cost-guard")
+@Data
+public class BeerCostGuardProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * {@code /web/beers}; pages of at least {@code beer.web.streaming.threshold} beers are streamed.
+     */
+    private Limits web = new Limits(1000, 0);
+
+    /**
+     * {@code /api/v4/beer}; first pages of at least {@code downgrade-threshold} beers are redirected to the keyset
+     * scroll resource.
+     */
+    private Limits collection = new Limits(1000, 500);
+
+    /**
+     * {@code /api/v4/beer/search/*} except the scroll resource.
+     */
+    private Limits search = new Limits(1000, 0);
+
+    /**
+     * {@code /api/v4/beer/search/scroll}.
+     */
+    private Limits scroll = new Limits(1000, 0);
+
+    private RateLimit rateLimit = new RateLimit();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+
+        /**
+         * Larger page sizes are reduced to this size.
+         */
+        private int maxPageSize;
+
+        /**
+         * Pages of at least this size are served in the cheaper mode of the endpoint, 0 to never downgrade.
+         */
+        private int downgradeThreshold;
+    }
+
+    @Data
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /**
+         * A request costs one token per this many rows read (offset plus page size), cheaper requests are free.
+         */
+        private int rowsPerToken = 100;
+
+        /**
+         * Tokens a client can spend at once, also the cost of the most expensive request.
+         */
+        private int capacity = 200;
+
+        /**
+         * Tokens added per second and client.
+         */
+        private double refillPerSecond = 20;
+
+        /**
+         * Header identifying the client, e.g. {@code X-Forwarded-For} behind a proxy; the remote address if empty.
+         */
+        private String clientHeader = "";
+
+        /**
+         * Clients tracked at once, the least recently seen ones start over with a full bucket.
+         */
+        private int maxClients = 10_000;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.dboeckli.spring.datarest.guard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory token bucket per client: {@code capacity} tokens, refilled continuously at {@code refill-per-second}. Only
+ * the {@code max-clients} most recently seen clients are tracked, a forgotten client starts over with a full bucket.
+ * Each replica limits on its own.
+ */
+@Component
+public class BeerRateLimiter {
+
+    private final BeerCostGuardProperties.RateLimit properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > properties.getMaxClients();
+        }
+    };
+
+    public BeerRateLimiter(BeerCostGuardProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getRateLimit();
+        meterRegistry.gauge("beer.cost.guard.clients", this, BeerRateLimiter::clients);
+    }
+
+    /**
+     * Takes {@code tokens} from the bucket of the client, at most the capacity.
+     *
+     * @return 0 if taken, otherwise the milliseconds until the bucket holds enough tokens (nothing is taken then)
+     */
+    public long tryAcquire(String client, long tokens) {
+        return tryAcquire(client, tokens, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long tokens, long now) {
+        double capacity = properties.getCapacity();
+        double requested = Math.min(tokens, capacity);
+        lock.lock();
+        try {
+            Bucket bucket = buckets.computeIfAbsent(client, _ -> new Bucket(capacity, now));
+            double refilled = (now - bucket.updated) / 1e9 * properties.getRefillPerSecond();
+            bucket.tokens = Math.min(capacity, bucket.tokens + refilled);
+            bucket.updated = now;
+            if (bucket.tokens >= requested) {
+                bucket.tokens -= requested;
+                return 0;
+            }
+            double missing = requested - bucket.tokens;
+            return Math.max(1, (long) Math.ceil(missing / properties.getRefillPerSecond() * TimeUnit.SECONDS.toMillis(1)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int clients() {
+        lock.lock();
+        try {
+            return buckets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long updated;
+
+        private Bucket(double tokens, long updated) {
+            this.tokens = tokens;
+            this.updated = updated;
+        }
+    }
+}
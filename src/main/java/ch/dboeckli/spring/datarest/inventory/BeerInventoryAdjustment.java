@@ -0,0 +1,18 @@
+package ch.dboeckli.spring.datarest.inventory;
+
+import ch.dboeckli.spring.datarest.event.BeerState;
+
+/**
+ * Outcome of a stock adjustment, {@code beer} is the state after the adjustment if it was applied.
+ */
+public record BeerInventoryAdjustment(Outcome outcome, BeerState beer) {
+
+    public enum Outcome {
+        APPLIED,
+        /**
+         * The adjustment would have taken the quantity on hand below zero.
+         */
+        INSUFFICIENT_STOCK,
+        NOT_FOUND
+    }
+}
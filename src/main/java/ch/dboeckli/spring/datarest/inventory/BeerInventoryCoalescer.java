@@ -0,0 +1,157 @@
+package ch.dboeckli.spring.datarest.inventory;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums up high frequency stock movements per beer and writes the net delta of each beer every
+ * {@code beer.inventory.coalesce.flush-interval}, one transaction per batch. Adding a delta merges it into the beer's
+ * entry of a {@link ConcurrentHashMap}, locking only that bin; an entry is removed when it is taken by a flush or its
+ * net delta is back to zero, so the map never holds more than the beers with unwritten movements.
+ * <p>
+ * Only deltas of existing beers are accepted. They are not checked against the stock: a net delta that would take the
+ * quantity below zero, or of a beer deleted meanwhile, is dropped at flush time, logged and counted as
+ * {@code beer.inventory.dropped{outcome}}. Deltas not flushed yet are lost if the process dies.
+ */
+@Component
+@Slf4j
+public class BeerInventoryCoalescer {
+
+    private final BeerInventoryService beerInventoryService;
+    private final BeerRepository beerRepository;
+    private final BeerInventoryProperties properties;
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter requeued;
+    private final Map<BeerInventoryAdjustment.Outcome, Counter> dropped = new EnumMap<>(BeerInventoryAdjustment.Outcome.class);
+    private ScheduledExecutorService flusher;
+
+    public BeerInventoryCoalescer(BeerInventoryService beerInventoryService, BeerRepository beerRepository,
+                                  BeerInventoryProperties properties, MeterRegistry meterRegistry) {
+        this.beerInventoryService = beerInventoryService;
+        this.beerRepository = beerRepository;
+        this.properties = properties;
+        this.coalesced = meterRegistry.counter("beer.inventory.coalesced");
+        this.requeued = meterRegistry.counter("beer.inventory.requeued");
+        for (BeerInventoryAdjustment.Outcome outcome : EnumSet.complementOf(EnumSet.of(BeerInventoryAdjustment.Outcome.APPLIED))) {
+            dropped.put(outcome, meterRegistry.counter("beer.inventory.dropped", "outcome", outcome.name().toLowerCase()));
+        }
+        meterRegistry.gaugeMapSize("beer.inventory.pending.beers", Tags.empty(), pending);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getCoalesce().isEnabled()) {
+            long interval = properties.getCoalesce().getFlushInterval().toMillis();
+            flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("beer-inventory-flush").daemon().factory());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+            log.info("Coalescing inventory adjustments, flushed every {} ms", interval);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flushQuietly();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getCoalesce().isEnabled();
+    }
+
+    /**
+     * @return {@code false} if there is no such beer; looked up through the second level cache
+     */
+    public boolean add(UUID beerId, int delta) {
+        if (beerRepository.findById(beerId).isEmpty()) {
+            return false;
+        }
+        merge(beerId, delta);
+        coalesced.increment();
+        return true;
+    }
+
+    private void merge(UUID beerId, long delta) {
+        pending.merge(beerId, delta, (older, newer) -> older + newer == 0 ? null : older + newer);
+    }
+
+    /**
+     * Writes all pending deltas.
+     *
+     * @return number of beers written
+     */
+    public synchronized int flush() {
+        int written = 0;
+        Map<UUID, Integer> batch = new LinkedHashMap<>();
+        for (UUID beerId : pending.keySet()) {
+            Long delta = pending.remove(beerId);
+            if (delta == null) {
+                continue;
+            }
+            int part = Math.clamp(delta, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (part != delta) {
+                // beyond an int, the rest goes with the next flush
+                merge(beerId, delta - part);
+            }
+            batch.put(beerId, part);
+            if (batch.size() >= properties.getCoalesce().getBatchSize()) {
+                written += write(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+        return written;
+    }
+
+    private int write(Map<UUID, Integer> batch) {
+        Map<UUID, BeerInventoryAdjustment> adjustments;
+        try {
+            adjustments = beerInventoryService.adjustAll(batch);
+        } catch (RuntimeException e) {
+            // the transaction was rolled back, keep the deltas for the next flush
+            batch.forEach(this::merge);
+            requeued.increment(batch.size());
+            log.warn("Flushing {} inventory adjustments failed, requeued: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+        int written = 0;
+        for (Map.Entry<UUID, BeerInventoryAdjustment> adjustment : adjustments.entrySet()) {
+            BeerInventoryAdjustment.Outcome outcome = adjustment.getValue().outcome();
+            if (outcome == BeerInventoryAdjustment.Outcome.APPLIED) {
+                written++;
+            } else {
+                dropped.get(outcome).increment();
+                log.warn("Dropped coalesced inventory delta {} of beer {}: {}", batch.get(adjustment.getKey()), adjustment.getKey(), outcome);
+            }
+        }
+        return written;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Flushing inventory adjustments failed", e);
+        }
+    }
+}
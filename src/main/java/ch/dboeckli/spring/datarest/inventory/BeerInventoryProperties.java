@@ -0,0 +1,36 @@
+package ch.dboeckli.spring.datarest.inventory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.inventory")
+@Data
+public class BeerInventoryProperties {
+
+    /**
+     * Attempts of an adjustment failing with a transient database error (lock timeout, deadlock).
+     */
+    private int maxAttempts = 3;
+
+    private Coalesce coalesce = new Coalesce();
+
+    @Data
+    public static class Coalesce {
+
+        /**
+         * Accept {@code coalesce=true} adjustments, which are summed up per beer and written every flush interval.
+         */
+        private boolean enabled = false;
+
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * Beers updated per flush transaction.
+         */
+        private int batchSize = 500;
+    }
+}
@@ -0,0 +1,128 @@
+package ch.dboeckli.spring.datarest.inventory;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.writebehind.BeerWriteBehindBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Stock movements as a single conditional {@code update beer set quantity_on_hand = quantity_on_hand + ?}, so
+ * concurrent sales of the same beer queue on the row lock instead of failing on the optimistic lock of a full update.
+ * The version is incremented all the same, a client holding an older version of the beer still gets a conflict.
+ * <p>
+ * The update is plain JDBC: a JPQL bulk update would drop the whole {@code beer} region of the second level cache on
+ * every sale, here only the adjusted beers are evicted after the commit. The {@link BeerChangedEvent} is published
+ * here. Buffered write-behind updates of the beer are written first, their absolute quantity would undo the movement
+ * otherwise.
+ */
+@Service
+@Slf4j
+public class BeerInventoryService {
+
+    private static final String ADJUST = "update beer set quantity_on_hand = coalesce(quantity_on_hand, 0) + ?, version = version + 1, "
+        + "last_modified_date = ? where id = ? and coalesce(quantity_on_hand, 0) + ? >= 0";
+
+    private final BeerRepository beerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BeerInventoryProperties properties;
+    private final BeerWriteBehindBuffer beerWriteBehindBuffer;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<BeerInventoryAdjustment.Outcome, Counter> outcomes = new EnumMap<>(BeerInventoryAdjustment.Outcome.class);
+    private final Counter retries;
+
+    public BeerInventoryService(BeerRepository beerRepository, JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                ApplicationEventPublisher eventPublisher, BeerInventoryProperties properties,
+                                BeerWriteBehindBuffer beerWriteBehindBuffer, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.beerWriteBehindBuffer = beerWriteBehindBuffer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (BeerInventoryAdjustment.Outcome outcome : BeerInventoryAdjustment.Outcome.values()) {
+            outcomes.put(outcome, meterRegistry.counter("beer.inventory.adjustments", "outcome", outcome.name().toLowerCase()));
+        }
+        this.retries = meterRegistry.counter("beer.inventory.retries");
+    }
+
+    public BeerInventoryAdjustment adjust(UUID beerId, int delta) {
+        return adjustAll(Map.of(beerId, delta)).get(beerId);
+    }
+
+    /**
+     * Applies the deltas in one transaction; adjustments without enough stock are skipped, not rolled back.
+     */
+    public Map<UUID, BeerInventoryAdjustment> adjustAll(Map<UUID, Integer> deltas) {
+        deltas.keySet().forEach(beerWriteBehindBuffer::flushBefore);
+        Map<UUID, BeerInventoryAdjustment> adjustments = withRetries(() -> transactionTemplate.execute(status -> {
+            Map<UUID, BeerInventoryAdjustment> applied = new LinkedHashMap<>();
+            deltas.forEach((beerId, delta) -> applied.put(beerId, apply(beerId, delta)));
+            return applied;
+        }));
+        boolean evicted = false;
+        for (Map.Entry<UUID, BeerInventoryAdjustment> adjustment : adjustments.entrySet()) {
+            outcomes.get(adjustment.getValue().outcome()).increment();
+            if (adjustment.getValue().outcome() == BeerInventoryAdjustment.Outcome.APPLIED) {
+                entityManagerFactory.getCache().evict(Beer.class, adjustment.getKey());
+                evicted = true;
+            }
+        }
+        if (evicted) {
+            // pages sorted by quantityOnHand
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+        return adjustments;
+    }
+
+    private BeerInventoryAdjustment apply(UUID beerId, int delta) {
+        // the application clock, as for all other writers, so export?since= sees every change in order
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (jdbcTemplate.update(ADJUST, delta, now, beerId.toString(), delta) == 0) {
+            return beerRepository.findVersionById(beerId).isPresent()
+                ? new BeerInventoryAdjustment(BeerInventoryAdjustment.Outcome.INSUFFICIENT_STOCK, null)
+                : new BeerInventoryAdjustment(BeerInventoryAdjustment.Outcome.NOT_FOUND, null);
+        }
+        BeerState current = beerRepository.findStateById(beerId).orElseThrow();
+        BeerState previous = new BeerState(current.id(), current.version() - 1, current.beerName(), current.beerStyle(),
+            current.upc(), current.quantityOnHand() - delta, current.price(), current.lastModifiedDate());
+        eventPublisher.publishEvent(BeerChangedEvent.updated(previous, current));
+        return new BeerInventoryAdjustment(BeerInventoryAdjustment.Outcome.APPLIED, current);
+    }
+
+    private <T> T withRetries(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (TransientDataAccessException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                retries.increment();
+                log.debug("Inventory adjustment attempt {} failed, retrying: {}", attempt, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+
+import java.util.List;
+
+/**
+ * @param beers   found beers in the order of the requested keys
+ * @param missing requested keys without a beer
+ */
+public record BeerBatch(List<Beer> beers, List<String> missing) {
+}
@@ -0,0 +1,60 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Loads many beers by id or upc with one {@code in (...)} query per {@code beer.batch-lookup.in-clause-size} keys.
+ */
+@Service
+@RequiredArgsConstructor
+public class BeerBatchLookup {
+
+    private final BeerRepository beerRepository;
+    private final BeerBatchLookupProperties properties;
+
+    @Transactional(readOnly = true)
+    public BeerBatch byIds(List<UUID> ids) {
+        return load(ids, beerRepository::findAllById, Beer::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public BeerBatch byUpcs(List<String> upcs) {
+        return load(upcs, beerRepository::findAllByUpcIn, Beer::getUpc);
+    }
+
+    private <K> BeerBatch load(List<K> keys, Function<List<K>, List<Beer>> query, Function<Beer, K> keyOf) {
+        List<K> distinctKeys = keys.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctKeys.size() > properties.getMaxKeys()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + properties.getMaxKeys() + " keys per request, got " + distinctKeys.size());
+        }
+
+        Map<K, Beer> found = HashMap.newHashMap(distinctKeys.size());
+        int chunkSize = properties.getInClauseSize();
+        for (int from = 0; from < distinctKeys.size(); from += chunkSize) {
+            List<K> chunk = distinctKeys.subList(from, Math.min(distinctKeys.size(), from + chunkSize));
+            query.apply(chunk).forEach(beer -> found.put(keyOf.apply(beer), beer));
+        }
+
+        List<Beer> beers = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (K key : distinctKeys) {
+            Beer beer = found.get(key);
+            if (beer != null) {
+                beers.add(beer);
+            } else {
+                missing.add(key.toString());
+            }
+        }
+        return new BeerBatch(beers, missing);
+    }
+}
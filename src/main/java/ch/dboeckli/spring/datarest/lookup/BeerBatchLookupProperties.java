@@ -0,0 +1,21 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "beer.batch-lookup")
+@Data
+public class BeerBatchLookupProperties {
+
+    /**
+     * Ids or upcs accepted per request.
+     */
+    private int maxKeys = 100;
+
+    /**
+     * Parameters per {@code in (...)} query, below the limit of the jdbc driver (e.g. 1000 for Oracle).
+     */
+    private int inClauseSize = 500;
+}
@@ -0,0 +1,16 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The fields a scanner needs for a upc, without the rest of the beer.
+ */
+public record BeerUpcEntry(UUID id, String upc, Long version, BigDecimal price, Integer quantityOnHand) {
+
+    public String toJson() {
+        return "{\"id\":\"" + id + "\",\"upc\":\"" + upc.replace("\\", "\\\\").replace("\"", "\\\"") + "\",\"version\":" + version
+            + ",\"price\":" + (price == null ? "null" : price.toPlainString())
+            + ",\"quantityOnHand\":" + quantityOnHand + "}";
+    }
+}
@@ -0,0 +1,334 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * Upc to id, version, price and quantity on hand of every beer with a 13 digit upc, in an open addressing hash table
+ * of primitive arrays keyed by the upc as {@code long}: about 45 bytes per beer and no object per entry, so a million
+ * beers stay out of the way of the garbage collector.
+ * <p>
+ * Lookups run lock free under an optimistic read stamp and only fall back to the read lock when a writer interfered.
+ * The table is loaded when the application is ready and follows every committed {@link BeerChangedEvent}.
+ */
+@Component
+@Slf4j
+public class BeerUpcIndex {
+
+    static final int UPC_LENGTH = 13;
+
+    private static final long FREE = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final int NO_QUANTITY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final BeerRepository beerRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private volatile boolean loaded;
+    private List<BeerChangedEvent> changesDuringLoad;
+
+    public BeerUpcIndex(BeerRepository beerRepository, PlatformTransactionManager transactionManager) {
+        this.beerRepository = beerRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            changesDuringLoad = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        Table loading = readOnlyTransaction.execute(status -> {
+            Table snapshot = new Table(INITIAL_CAPACITY);
+            try (Stream<BeerUpcEntry> entries = beerRepository.streamUpcEntries()) {
+                for (Iterator<BeerUpcEntry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                    BeerUpcEntry entry = iterator.next();
+                    long key = key(entry.upc());
+                    if (key != FREE) {
+                        snapshot = snapshot.put(key, entry.id(), entry.version(), entry.price(), entry.quantityOnHand());
+                    }
+                }
+            }
+            return snapshot;
+        });
+        stamp = lock.writeLock();
+        try {
+            table = loading;
+            // changes committed while streaming may be missing in the snapshot, the version check skips the others
+            changesDuringLoad.forEach(this::apply);
+            changesDuringLoad = null;
+            loaded = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Indexed {} upcs in {} ms", loading.size, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Whether {@link #lookup(String)} is authoritative for this upc: the index is loaded and the upc has 13 digits.
+     */
+    public boolean covers(String upc) {
+        return loaded && key(upc) != FREE;
+    }
+
+    /**
+     * @return the entry or {@code null} if there is no beer with this upc (or the upc is not {@link #covers covered})
+     */
+    public BeerUpcEntry lookup(String upc) {
+        long key = key(upc);
+        if (key == FREE) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        BeerUpcEntry entry = table.get(key, upc);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                entry = table.get(key, upc);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return entry;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        onBeersChanged(new BeerBulkChangedEvent(List.of(event)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.addAll(event.changes());
+            }
+            event.changes().forEach(this::apply);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void apply(BeerChangedEvent event) {
+        Table current = table;
+        UUID id = event.beerId();
+        long key = event.current() == null ? FREE : key(event.current().upc());
+        if (key != FREE && current.holds(key, id)) {
+            // same upc as before, most updates end here
+            BeerState state = event.current();
+            if (!current.isNewer(key, state.version())) {
+                table = current.put(key, id, state.version(), state.price(), state.quantityOnHand());
+            }
+            return;
+        }
+        if (event.previous() != null) {
+            long previousKey = key(event.previous().upc());
+            if (previousKey != FREE && current.holds(previousKey, id)) {
+                current.remove(previousKey);
+            }
+        } else if (event.type() != BeerChangedEvent.ChangeType.CREATED) {
+            current.removeId(id);
+        }
+        if (key != FREE) {
+            BeerState state = event.current();
+            table = current.put(key, id, state.version(), state.price(), state.quantityOnHand());
+        }
+    }
+
+    /**
+     * @return the upc as number, {@code -1} unless it consists of exactly 13 digits
+     */
+    static long key(String upc) {
+        if (upc == null || upc.length() != UPC_LENGTH) {
+            return FREE;
+        }
+        long key = 0;
+        for (int i = 0; i < UPC_LENGTH; i++) {
+            char digit = upc.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return FREE;
+            }
+            key = key * 10 + (digit - '0');
+        }
+        return key;
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Linear probing with backward shift deletion, resized at 60% load. Only written under the write lock.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final long[] idHigh;
+        private final long[] idLow;
+        private final long[] versions;
+        private final long[] prices;
+        private final int[] quantities;
+        private final int mask;
+        private int size;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, FREE);
+            idHigh = new long[capacity];
+            idLow = new long[capacity];
+            versions = new long[capacity];
+            prices = new long[capacity];
+            quantities = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return the slot of the key, or {@code -(free slot) - 1}
+         */
+        private int slot(long key) {
+            int slot = hash(key) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = keys[slot];
+                if (candidate == key) {
+                    return slot;
+                }
+                if (candidate == FREE) {
+                    return -slot - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // only reachable by an optimistic reader racing a writer, the stamp validation discards the result
+            return Integer.MIN_VALUE;
+        }
+
+        private BeerUpcEntry get(long key, String upc) {
+            int slot = slot(key);
+            if (slot < 0) {
+                return null;
+            }
+            return new BeerUpcEntry(new UUID(idHigh[slot], idLow[slot]), upc, versions[slot],
+                prices[slot] == NO_PRICE ? null : BigDecimal.valueOf(prices[slot], 2),
+                quantities[slot] == NO_QUANTITY ? null : quantities[slot]);
+        }
+
+        private boolean holds(long key, UUID id) {
+            int slot = slot(key);
+            return slot >= 0 && idHigh[slot] == id.getMostSignificantBits() && idLow[slot] == id.getLeastSignificantBits();
+        }
+
+        private boolean isNewer(long key, Long version) {
+            int slot = slot(key);
+            return slot >= 0 && version != null && versions[slot] > version;
+        }
+
+        /**
+         * @return this table, or a larger copy if it had to grow
+         */
+        private Table put(long key, UUID id, Long version, BigDecimal price, Integer quantityOnHand) {
+            int slot = slot(key);
+            if (slot < 0) {
+                if ((size + 1) * 10L > keys.length * 6L) {
+                    return grow().put(key, id, version, price, quantityOnHand);
+                }
+                slot = -slot - 1;
+                size++;
+            }
+            idHigh[slot] = id.getMostSignificantBits();
+            idLow[slot] = id.getLeastSignificantBits();
+            versions[slot] = version == null ? 0 : version;
+            prices[slot] = price == null ? NO_PRICE : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            quantities[slot] = quantityOnHand == null ? NO_QUANTITY : quantityOnHand;
+            keys[slot] = key;
+            return this;
+        }
+
+        private Table grow() {
+            Table grown = new Table(keys.length * 2);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != FREE) {
+                    int target = -grown.slot(keys[slot]) - 1;
+                    grown.keys[target] = keys[slot];
+                    grown.idHigh[target] = idHigh[slot];
+                    grown.idLow[target] = idLow[slot];
+                    grown.versions[target] = versions[slot];
+                    grown.prices[target] = prices[slot];
+                    grown.quantities[target] = quantities[slot];
+                }
+            }
+            grown.size = size;
+            return grown;
+        }
+
+        private void remove(long key) {
+            int gap = slot(key);
+            if (gap < 0) {
+                return;
+            }
+            int slot = gap;
+            while (true) {
+                slot = (slot + 1) & mask;
+                long candidate = keys[slot];
+                if (candidate == FREE) {
+                    break;
+                }
+                int home = hash(candidate) & mask;
+                // move the entry into the gap unless its probe sequence starts after the gap
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = candidate;
+                    idHigh[gap] = idHigh[slot];
+                    idLow[gap] = idLow[slot];
+                    versions[gap] = versions[slot];
+                    prices[gap] = prices[slot];
+                    quantities[gap] = quantities[slot];
+                    gap = slot;
+                }
+            }
+            keys[gap] = FREE;
+            size--;
+        }
+
+        /**
+         * Full scan, only for changes without the previous upc.
+         */
+        private void removeId(UUID id) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != FREE && idHigh[slot] == id.getMostSignificantBits() && idLow[slot] == id.getLeastSignificantBits()) {
+                    remove(keys[slot]);
+                    return;
+                }
+            }
+        }
+    }
+}
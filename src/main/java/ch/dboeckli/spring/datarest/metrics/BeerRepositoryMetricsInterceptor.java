@@ -0,0 +1,153 @@
+package ch.dboeckli.spring.datarest.metrics;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.repository.BeerRepositoryInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+import java.util.stream.Collectors;
+
+/**
+ * Times every {@link BeerRepository} call, including the ones Spring Data REST makes, with a percentile histogram per
+ * method and exported resource ({@code /beer/search/<path>}, {@code crud} for the inherited methods, {@code none} for
+ * internal queries), and records the rows returned and the statements prepared. Slow calls are logged with their
+ * arguments. Outermost repository interceptor, cache hits of the inner ones are timed as well.
+ */
+@Component
+@Order(10)
+@RequiredArgsConstructor
+@Slf4j
+public class BeerRepositoryMetricsInterceptor implements BeerRepositoryInterceptor {
+
+    static final String INVOCATIONS = "beer.repository.invocations";
+    static final String ROWS = "beer.repository.rows";
+    static final String STATEMENTS = "beer.repository.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final BeerRepositoryMetricsProperties properties;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!properties.isEnabled()) {
+            return invocation.proceed();
+        }
+        MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(), this::register);
+        long statementsBefore = BeerStatementCounter.count();
+        long started = System.nanoTime();
+        boolean failed = true;
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            long statements = BeerStatementCounter.count() - statementsBefore;
+            (failed ? methodMeters.failed() : methodMeters.succeeded()).record(elapsed, TimeUnit.NANOSECONDS);
+            methodMeters.statements().record(statements);
+            long rows = failed ? -1 : rows(result);
+            if (rows >= 0) {
+                methodMeters.rows().record(rows);
+            }
+            if (elapsed >= properties.getSlowThreshold().toNanos()) {
+                log.warn("Slow repository call {} ({}) took {} ms, {} statements, {} rows, arguments {}",
+                    invocation.getMethod().getName(), methodMeters.resource(), elapsed / 1_000_000, statements,
+                    rows < 0 ? "?" : rows, arguments(invocation.getArguments()));
+            }
+        }
+    }
+
+    private MethodMeters register(Method method) {
+        String name = method.getName();
+        String resource = resource(method);
+        return new MethodMeters(resource,
+            timer(name, resource, "success"),
+            timer(name, resource, "error"),
+            DistributionSummary.builder(ROWS)
+                .tag("method", name)
+                .tag("resource", resource)
+                .publishPercentileHistogram()
+                .register(meterRegistry),
+            DistributionSummary.builder(STATEMENTS)
+                .tag("method", name)
+                .tag("resource", resource)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private Timer timer(String method, String resource, String outcome) {
+        return Timer.builder(INVOCATIONS)
+            .tag("method", method)
+            .tag("resource", resource)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(10))
+            .register(meterRegistry);
+    }
+
+    /**
+     * The search resource Spring Data REST exports the method as.
+     */
+    static String resource(Method method) {
+        if (!BeerRepository.class.equals(method.getDeclaringClass())) {
+            return "crud";
+        }
+        RestResource restResource = method.getAnnotation(RestResource.class);
+        if (restResource == null) {
+            return "/beer/search/" + method.getName();
+        }
+        if (!restResource.exported()) {
+            return "none";
+        }
+        return "/beer/search/" + (StringUtils.hasText(restResource.path()) ? restResource.path() : method.getName());
+    }
+
+    /**
+     * @return number of rows of a query result, {@code -1} for streams and scalars
+     */
+    static long rows(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> collection -> collection.size();
+            case Slice<?> slice -> slice.getNumberOfElements();
+            case Window<?> window -> window.size();
+            case Optional<?> optional -> optional.isPresent() ? 1 : 0;
+            case Number _, Boolean _, Iterable<?> _, BaseStream<?, ?> _ -> -1;
+            default -> 1;
+        };
+    }
+
+    private String arguments(Object[] arguments) {
+        if (!properties.isLogParameters()) {
+            return "[..]";
+        }
+        return Arrays.stream(arguments)
+            .map(argument -> StringUtils.truncate(String.valueOf(argument), properties.getMaxParameterLength()))
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private record MethodMeters(String resource, Timer succeeded, Timer failed, DistributionSummary rows,
+                                DistributionSummary statements) {
+    }
+}
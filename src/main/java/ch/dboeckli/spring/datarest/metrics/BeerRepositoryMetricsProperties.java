@@ -0,0 +1,32 @@
+package ch.dboeckli.spring.datarest.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.repository-metrics")
+@Data
+public class BeerRepositoryMetricsProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Repository calls taking at least this long are logged as warning.
+     */
+    private Duration slowThreshold = Duration.ofMillis(250);
+
+    /**
+     * Log the arguments of slow calls, each cut to {@code max-parameter-length} characters.
+     */
+    private boolean logParameters = true;
+
+    private int maxParameterLength = 200;
+
+    /**
+     * Requests preparing more statements are logged as warning, they are likely N+1 selects.
+     */
+    private int statementsPerRequestThreshold = 25;
+}
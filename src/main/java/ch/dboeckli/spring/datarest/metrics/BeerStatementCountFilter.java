@@ -0,0 +1,60 @@
+package ch.dboeckli.spring.datarest.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the Hibernate statements prepared per request as {@code beer.http.statements}, tagged like
+ * {@code http.server.requests} with method and uri pattern, and logs requests above
+ * {@code beer.repository-metrics.statements-per-request-threshold}. Work handed to other threads (streamed responses)
+ * is not counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+@Slf4j
+public class BeerStatementCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final BeerRepositoryMetricsProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        long statementsBefore = BeerStatementCounter.count();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long statements = BeerStatementCounter.count() - statementsBefore;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            DistributionSummary.builder("beer.http.statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+            if (statements > properties.getStatementsPerRequestThreshold()) {
+                log.warn("{} {} prepared {} statements, check for N+1 selects", request.getMethod(), request.getRequestURI(), statements);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ch.dboeckli.spring.datarest.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, registered as
+ * {@code hibernate.session_factory.statement_inspector}. Plain JDBC ({@code JdbcTemplate}) is not counted.
+ */
+public class BeerStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return statements prepared on this thread so far, compare two values to get the statements in between
+     */
+    public static long count() {
+        return STATEMENTS.get()[0];
+    }
+}
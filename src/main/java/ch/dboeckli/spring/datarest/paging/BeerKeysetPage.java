@@ -0,0 +1,11 @@
+package ch.dboeckli.spring.datarest.paging;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+
+import java.util.List;
+
+/**
+ * One keyset window. {@code nextCursor} is {@code null} on the last window.
+ */
+public record BeerKeysetPage(List<Beer> content, String nextCursor) {
+}
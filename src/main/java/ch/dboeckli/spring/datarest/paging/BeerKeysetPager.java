@@ -0,0 +1,73 @@
+package ch.dboeckli.spring.datarest.paging;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seek pagination over the beer catalog. Every window costs the same index range scan, independent of
+ * how deep the client has scrolled, and no count query is issued.
+ * <p>
+ * Beers without a name come first in {@link BeerScrollOrder#NAME}, ordered by id. The keyset condition of Spring Data
+ * ({@code beer_name > ?}) never matches a {@code null} key, so they are scrolled by a query of their own.
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerKeysetPager {
+
+    private final BeerRepository beerRepository;
+
+    public BeerKeysetPage scroll(BeerScrollOrder order, String cursor, int size) {
+        KeysetScrollPosition position;
+        try {
+            position = BeerScrollToken.decode(order, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+
+        Window<Beer> window = order == BeerScrollOrder.NAME
+            ? scrollByName(position, size)
+            : beerRepository.findAllBy(position, Limit.of(size), order.sort());
+        String nextCursor = window.hasNext() && !window.isEmpty()
+            ? BeerScrollToken.encode(order, (KeysetScrollPosition) window.positionAt(window.size() - 1))
+            : null;
+        return new BeerKeysetPage(window.getContent(), nextCursor);
+    }
+
+    private Window<Beer> scrollByName(KeysetScrollPosition position, int size) {
+        if (!position.isInitial() && position.getKeys().get(BeerScrollOrder.NAME.property()) != null) {
+            return beerRepository.findAllByBeerNameIsNotNull(position, Limit.of(size), BeerScrollOrder.NAME.sort());
+        }
+        KeysetScrollPosition idPosition = position.isInitial()
+            ? position
+            : ScrollPosition.forward(Map.of(BeerScrollToken.ID_PROPERTY, position.getKeys().get(BeerScrollToken.ID_PROPERTY)));
+        Window<Beer> unnamed = beerRepository.findAllByBeerNameIsNull(idPosition, Limit.of(size), Sort.by(BeerScrollToken.ID_PROPERTY));
+        if (unnamed.hasNext()) {
+            return unnamed;
+        }
+        // the window is completed with the first named beers
+        int remaining = size - unnamed.size();
+        Window<Beer> named = beerRepository.findAllByBeerNameIsNotNull(ScrollPosition.keyset(), Limit.of(Math.max(remaining, 1)),
+            BeerScrollOrder.NAME.sort());
+        if (remaining == 0) {
+            return Window.from(unnamed.getContent(), unnamed::positionAt, !named.isEmpty());
+        }
+        List<Beer> content = new ArrayList<>(unnamed.getContent());
+        content.addAll(named.getContent());
+        int offset = unnamed.size();
+        return Window.from(content, index -> index < offset ? unnamed.positionAt(index) : named.positionAt(index - offset),
+            named.hasNext());
+    }
+}
@@ -0,0 +1,35 @@
+package ch.dboeckli.spring.datarest.paging;
+
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.util.function.Function;
+
+/**
+ * Supported keyset orders. The id is always the tie-breaker so that every position is unique.
+ */
+public enum BeerScrollOrder {
+
+    NAME("beerName", Function.identity()),
+    CREATED("createdDate", Timestamp::valueOf);
+
+    private final String property;
+    private final Function<String, Object> keyParser;
+
+    BeerScrollOrder(String property, Function<String, Object> keyParser) {
+        this.property = property;
+        this.keyParser = keyParser;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public Sort sort() {
+        return Sort.by(property, BeerScrollToken.ID_PROPERTY);
+    }
+
+    Object parseKey(String value) {
+        return keyParser.apply(value);
+    }
+}
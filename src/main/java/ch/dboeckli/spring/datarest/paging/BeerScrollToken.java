@@ -0,0 +1,61 @@
+package ch.dboeckli.spring.datarest.paging;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token for keyset scrolling: base64url of {@code ORDER|id|length:sortKey}, or {@code ORDER|id|-}
+ * when the sort key is {@code null}. The length prefix keeps a sort key containing the separator intact.
+ */
+public final class BeerScrollToken {
+
+    static final String ID_PROPERTY = "id";
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_KEY = "-";
+
+    private BeerScrollToken() {
+    }
+
+    public static String encode(BeerScrollOrder order, KeysetScrollPosition position) {
+        Map<String, ?> keys = position.getKeys();
+        Object key = keys.get(order.property());
+        String encodedKey = key == null ? NULL_KEY : key.toString().length() + ":" + key;
+        String raw = order.name() + SEPARATOR + keys.get(ID_PROPERTY) + SEPARATOR + encodedKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetScrollPosition decode(BeerScrollOrder order, String token) {
+        if (!StringUtils.hasText(token)) {
+            return ScrollPosition.keyset();
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\" + SEPARATOR, 3);
+        if (parts.length != 3 || !order.name().equals(parts[0])) {
+            throw new IllegalArgumentException("Cursor does not belong to order " + order);
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(order.property(), NULL_KEY.equals(parts[2]) ? null : order.parseKey(decodeKey(parts[2])));
+        keys.put(ID_PROPERTY, UUID.fromString(parts[1]));
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String decodeKey(String encodedKey) {
+        int colon = encodedKey.indexOf(':');
+        if (colon < 1) {
+            throw new IllegalArgumentException("Cursor sort key has no length");
+        }
+        String key = encodedKey.substring(colon + 1);
+        if (Integer.parseInt(encodedKey, 0, colon, 10) != key.length()) {
+            throw new IllegalArgumentException("Cursor sort key is truncated");
+        }
+        return key;
+    }
+}
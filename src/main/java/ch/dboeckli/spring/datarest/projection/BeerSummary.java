@@ -0,0 +1,24 @@
+package ch.dboeckli.spring.datarest.projection;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import lombok.Value;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * List view of a beer, read with a constructor expression: not managed, no dirty checking snapshot, no version and
+ * timestamps. Same fields as {@link BeerSummaryProjection}.
+ */
+@Value
+@Relation(collectionRelation = "beers", itemRelation = "beer")
+public class BeerSummary {
+
+    UUID id;
+    String beerName;
+    BeerStyleEnum beerStyle;
+    String upc;
+    BigDecimal price;
+    Integer quantityOnHand;
+}
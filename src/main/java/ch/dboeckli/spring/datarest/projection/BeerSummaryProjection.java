@@ -0,0 +1,27 @@
+package ch.dboeckli.spring.datarest.projection;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import org.springframework.data.rest.core.config.Projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Excerpt of a beer in collections and search results ({@code ?projection=summary}), the item resource stays complete.
+ */
+@Projection(name = "summary", types = Beer.class)
+public interface BeerSummaryProjection {
+
+    UUID getId();
+
+    String getBeerName();
+
+    BeerStyleEnum getBeerStyle();
+
+    String getUpc();
+
+    BigDecimal getPrice();
+
+    Integer getQuantityOnHand();
+}
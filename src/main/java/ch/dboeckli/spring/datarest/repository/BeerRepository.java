@@ -2,20 +2,158 @@ package ch.dboeckli.spring.datarest.repository;
 
 import ch.dboeckli.spring.datarest.entity.Beer;
 import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcEntry;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import ch.dboeckli.spring.datarest.projection.BeerSummaryProjection;
+import ch.dboeckli.spring.datarest.stats.BeerPriceBucket;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-@RepositoryRestResource(path = "beer")
+import static org.hibernate.jpa.HibernateHints.*;
+
+/**
+ * The paged {@code findAll*} queries take their totals from the count cache, see
+ * {@link ch.dboeckli.spring.datarest.cache.BeerCountCachingInterceptor}. The {@code findSlice*} twins are exported
+ * as search resources for clients that do not need totals at all.
+ * <p>
+ * The derived queries are cacheable in the Hibernate query cache (region {@code default-query-results-region}), which
+ * is invalidated by Hibernate itself whenever the beer table is written through this application.
+ * <p>
+ * Lists are rendered as {@link BeerSummaryProjection}; the collection resource and the web list read them as
+ * {@link BeerSummary} with {@code findAllSummariesBy}.
+ */
+@RepositoryRestResource(path = "beer", excerptProjection = BeerSummaryProjection.class)
 public interface BeerRepository extends JpaRepository<Beer, UUID> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Page<Beer> findAllByBeerName(String beerName, Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Page<Beer> findAllByBeerStyle(BeerStyleEnum beerStyle, Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Page<Beer> findAllByBeerNameAndBeerStyle(String beerName, BeerStyleEnum beerStyle, Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Beer findByUpc(String upc);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(path = "slice", rel = "slice")
+    Slice<Beer> findSliceBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(path = "sliceByBeerName", rel = "sliceByBeerName")
+    Slice<Beer> findSliceByBeerName(String beerName, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(path = "sliceByBeerStyle", rel = "sliceByBeerStyle")
+    Slice<Beer> findSliceByBeerStyle(BeerStyleEnum beerStyle, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(path = "sliceByBeerNameAndBeerStyle", rel = "sliceByBeerNameAndBeerStyle")
+    Slice<Beer> findSliceByBeerNameAndBeerStyle(String beerName, BeerStyleEnum beerStyle, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query(value = "select new ch.dboeckli.spring.datarest.projection.BeerSummary(b.id, b.beerName, b.beerStyle, b.upc, b.price, b.quantityOnHand) from Beer b",
+        countQuery = "select count(b) from Beer b")
+    Page<BeerSummary> findAllSummariesBy(Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select new ch.dboeckli.spring.datarest.projection.BeerSummary(b.id, b.beerName, b.beerStyle, b.upc, b.price, b.quantityOnHand) from Beer b")
+    Slice<BeerSummary> findSliceSummariesBy(Pageable pageable);
+
+    /**
+     * The web list page in streaming mode, must be consumed within a transaction.
+     */
+    @RestResource(exported = false)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    @Query("select new ch.dboeckli.spring.datarest.projection.BeerSummary(b.id, b.beerName, b.beerStyle, b.upc, b.price, b.quantityOnHand) from Beer b")
+    Stream<BeerSummary> streamSummariesBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(exported = false)
+    long countSummariesBy();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(exported = false)
+    long countByBeerName(String beerName);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(exported = false)
+    long countByBeerStyle(BeerStyleEnum beerStyle);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @RestResource(exported = false)
+    long countByBeerNameAndBeerStyle(String beerName, BeerStyleEnum beerStyle);
+
+    @RestResource(exported = false)
+    List<Beer> findAllByUpcIn(Collection<String> upcs);
+
+    @RestResource(exported = false)
+    Window<Beer> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+    @RestResource(exported = false)
+    Window<Beer> findAllByBeerNameIsNull(ScrollPosition position, Limit limit, Sort sort);
+
+    @RestResource(exported = false)
+    Window<Beer> findAllByBeerNameIsNotNull(ScrollPosition position, Limit limit, Sort sort);
+
+    @RestResource(exported = false)
+    @Query("select b.version from Beer b where b.id = ?1")
+    Optional<Long> findVersionById(UUID id);
+
+    @RestResource(exported = false)
+    @Query("select new ch.dboeckli.spring.datarest.event.BeerState(b.id, b.version, b.beerName, b.beerStyle, b.upc, b.quantityOnHand, b.price, b.lastModifiedDate) from Beer b where b.id = ?1")
+    Optional<BeerState> findStateById(UUID id);
+
+    @RestResource(exported = false)
+    @Query("select new ch.dboeckli.spring.datarest.event.BeerState(b.id, b.version, b.beerName, b.beerStyle, b.upc, b.quantityOnHand, b.price, b.lastModifiedDate) from Beer b where b.id in ?1")
+    List<BeerState> findAllStatesByIdIn(Collection<UUID> ids);
+
+    /**
+     * For the catalog export, must be consumed within a transaction. The entities are read only and bypass the second
+     * level cache.
+     */
+    @RestResource(exported = false)
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Beer> streamAllByOrderByIdAsc();
+
+    @RestResource(exported = false)
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Beer> streamAllByLastModifiedDateGreaterThanEqualOrderByLastModifiedDateAsc(Timestamp since);
+
+    /**
+     * Loads the upc index, must be consumed within a transaction.
+     */
+    @RestResource(exported = false)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new ch.dboeckli.spring.datarest.lookup.BeerUpcEntry(b.id, b.upc, b.version, b.price, b.quantityOnHand) from Beer b")
+    Stream<BeerUpcEntry> streamUpcEntries();
+
+    /**
+     * Reconciliation of {@link ch.dboeckli.spring.datarest.stats.BeerStyleStatistics}.
+     */
+    @RestResource(exported = false)
+    @Query("select new ch.dboeckli.spring.datarest.stats.BeerPriceBucket(b.beerStyle, b.price, count(b), sum(b.quantityOnHand)) from Beer b group by b.beerStyle, b.price")
+    List<BeerPriceBucket> findPriceBuckets();
 }
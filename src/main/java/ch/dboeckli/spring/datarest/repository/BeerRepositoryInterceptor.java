@@ -0,0 +1,10 @@
+package ch.dboeckli.spring.datarest.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * Marker for advice that is woven into the {@link BeerRepository} proxy by {@link BeerRepositoryInterceptorRegistrar}.
+ * Ordering follows {@link org.springframework.core.annotation.Order}, lowest first (outermost).
+ */
+public interface BeerRepositoryInterceptor extends MethodInterceptor {
+}
@@ -0,0 +1,34 @@
+package ch.dboeckli.spring.datarest.repository;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds all {@link BeerRepositoryInterceptor} beans to the repository proxy, the same way Spring Boot attaches its
+ * repository metrics. Because the advice sits on the proxy it also applies to the calls Spring Data REST makes.
+ */
+@Component
+public class BeerRepositoryInterceptorRegistrar implements BeanPostProcessor {
+
+    private final ObjectProvider<BeerRepositoryInterceptor> interceptors;
+
+    public BeerRepositoryInterceptorRegistrar(ObjectProvider<BeerRepositoryInterceptor> interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+            repositoryFactoryBean.addRepositoryFactoryCustomizer(repositoryFactory ->
+                repositoryFactory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                    if (Beer.class.equals(repositoryInformation.getDomainType())) {
+                        interceptors.orderedStream().forEach(proxyFactory::addAdvice);
+                    }
+                }));
+        }
+        return bean;
+    }
+}
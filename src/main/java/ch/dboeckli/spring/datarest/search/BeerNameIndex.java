@@ -0,0 +1,406 @@
+package ch.dboeckli.spring.datarest.search;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over the words of {@code beerName} and over {@code upc}, for search-as-you-type.
+ * <p>
+ * Words are lower-cased and stripped of accents; the term dictionary is sorted, so a query word matches all words it
+ * is a prefix of with one range lookup. All words of a query have to match. Matches are ranked by how many query words
+ * match a whole word, then by name length and name.
+ * <p>
+ * Every beer gets a dense int document number, the postings of a term are a sorted {@code int[]} of them. A query is
+ * driven by its narrowest word (by posting count) and stops after {@code beer.search.max-candidates} matches, so a broad
+ * query costs the same as a precise one; its total is then reported as that cap.
+ * <p>
+ * The index is built when the application is ready and follows every committed {@link BeerChangedEvent}. Beers written
+ * around the database (plain jdbc) are only picked up by {@link #rebuild()}.
+ */
+@Component
+@Slf4j
+public class BeerNameIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final BeerRepository beerRepository;
+    private final EntityManager entityManager;
+    private final BeerSearchProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> docsById = new HashMap<>();
+    private IndexedBeer[] docs = new IndexedBeer[1024];
+    private int docCount;
+    private int[] freeDocs = new int[64];
+    private int freeDocCount;
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final NavigableMap<String, UUID> upcs = new TreeMap<>();
+    private List<BeerChangedEvent> changesDuringRebuild;
+
+    public BeerNameIndex(BeerRepository beerRepository, EntityManager entityManager, BeerSearchProperties properties,
+                         PlatformTransactionManager transactionManager) {
+        this.beerRepository = beerRepository;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<IndexedBeer> snapshot = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Beer> stream = beerRepository.streamAllByOrderByIdAsc()) {
+                stream.forEach(beer -> {
+                    snapshot.add(indexed(beer.getId(), beer.getVersion(), beer.getBeerName(), beer.getUpc()));
+                    entityManager.detach(beer);
+                });
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            docsById.clear();
+            docs = new IndexedBeer[Math.max(1024, snapshot.size())];
+            docCount = 0;
+            freeDocCount = 0;
+            terms.clear();
+            upcs.clear();
+            // documents are numbered in snapshot order, so every posting is filled by appending
+            snapshot.forEach(this::add);
+            // changes committed while streaming may be missing in the snapshot, the version check skips the others
+            changesDuringRebuild.forEach(this::apply);
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} beer names with {} terms in {} ms", snapshot.size(), terms.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        onBeersChanged(new BeerBulkChangedEvent(List.of(event)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(event.changes());
+            }
+            event.changes().forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query words or beginnings of words of the name, in any order
+     */
+    public BeerSearchResult searchByName(String query, long offset, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        int maxCandidates = properties.getMaxCandidates();
+        if (queryTerms.isEmpty() || offset >= maxCandidates) {
+            return queryTerms.isEmpty() ? BeerSearchResult.EMPTY : new BeerSearchResult(List.of(), maxCandidates);
+        }
+        lock.readLock().lock();
+        try {
+            List<TermMatches> matches = new ArrayList<>(queryTerms.size());
+            for (String queryTerm : queryTerms) {
+                TermMatches termMatches = matching(queryTerm);
+                if (termMatches.count() == 0) {
+                    return BeerSearchResult.EMPTY;
+                }
+                matches.add(termMatches);
+            }
+            matches.sort(Comparator.comparingLong(TermMatches::count));
+            List<DocSet> filters = matches.subList(1, matches.size()).stream().map(this::docSet).toList();
+
+            Comparator<Ranked> ranking = Comparator.comparingInt(Ranked::score).reversed()
+                .thenComparingInt(ranked -> ranked.beer().beerName().length())
+                .thenComparing(ranked -> ranked.beer().beerName())
+                .thenComparing(ranked -> ranked.beer().id());
+            int wanted = (int) (offset + limit);
+            PriorityQueue<Ranked> top = new PriorityQueue<>(Math.min(wanted, maxCandidates) + 1, ranking.reversed());
+            DocSet candidates = docSet(matches.getFirst());
+            int total = 0;
+            for (int doc = candidates.next(0); doc >= 0 && total < maxCandidates; doc = candidates.next(doc + 1)) {
+                if (!containedInAll(doc, filters)) {
+                    continue;
+                }
+                total++;
+                IndexedBeer beer = docs[doc];
+                top.add(new Ranked(beer, score(beer, queryTerms)));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<Ranked> ranked = new ArrayList<>(top);
+            ranked.sort(ranking);
+            List<UUID> page = ranked.stream().skip(offset).limit(limit).map(match -> match.beer().id()).toList();
+            return new BeerSearchResult(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Beers whose upc starts with the given digits, ordered by upc. Counts at most {@code beer.search.max-candidates}.
+     */
+    public BeerSearchResult searchByUpcPrefix(String prefix, long offset, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return BeerSearchResult.EMPTY;
+        }
+        int maxCandidates = properties.getMaxCandidates();
+        lock.readLock().lock();
+        try {
+            List<UUID> page = new ArrayList<>(limit);
+            int total = 0;
+            for (UUID id : upcs.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                if (total >= maxCandidates) {
+                    break;
+                }
+                if (total >= offset && page.size() < limit) {
+                    page.add(id);
+                }
+                total++;
+            }
+            return new BeerSearchResult(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(normalized)).filter(term -> !term.isEmpty()).toList();
+    }
+
+    private static IndexedBeer indexed(UUID id, Long version, String beerName, String upc) {
+        return new IndexedBeer(id, version, beerName, upc, tokenize(beerName).stream().distinct().toArray(String[]::new));
+    }
+
+    private void apply(BeerChangedEvent event) {
+        Integer doc = docsById.get(event.beerId());
+        if (event.type() == BeerChangedEvent.ChangeType.DELETED) {
+            if (doc != null) {
+                remove(doc);
+            }
+            return;
+        }
+        BeerState current = event.current();
+        if (doc != null) {
+            IndexedBeer indexed = docs[doc];
+            if (indexed.version() != null && current.version() != null && indexed.version() > current.version()) {
+                return;
+            }
+            remove(doc);
+        }
+        add(indexed(current.id(), current.version(), current.beerName(), current.upc()));
+    }
+
+    private TermMatches matching(String queryTerm) {
+        if (queryTerm.length() < properties.getMinPrefixLength()) {
+            Postings postings = terms.get(queryTerm);
+            return postings == null ? new TermMatches(List.of(), 0) : new TermMatches(List.of(postings), postings.size);
+        }
+        Collection<Postings> range = terms.subMap(queryTerm, queryTerm + Character.MAX_VALUE).values();
+        long count = 0;
+        for (Postings postings : range) {
+            count += postings.size;
+        }
+        return new TermMatches(range, count);
+    }
+
+    /**
+     * A single posting is searched in place; a prefix range is or-ed into a bit set, one bit per document.
+     */
+    private DocSet docSet(TermMatches matches) {
+        if (matches.postings().size() == 1) {
+            return matches.postings().iterator().next();
+        }
+        BitSet bits = new BitSet(docCount);
+        for (Postings postings : matches.postings()) {
+            for (int i = 0; i < postings.size; i++) {
+                bits.set(postings.docs[i]);
+            }
+        }
+        return new DocSet() {
+            @Override
+            public boolean contains(int doc) {
+                return bits.get(doc);
+            }
+
+            @Override
+            public int next(int from) {
+                return bits.nextSetBit(from);
+            }
+        };
+    }
+
+    private static boolean containedInAll(int doc, List<DocSet> filters) {
+        for (DocSet filter : filters) {
+            if (!filter.contains(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int score(IndexedBeer beer, List<String> queryTerms) {
+        int score = 0;
+        for (String queryTerm : queryTerms) {
+            score += Arrays.asList(beer.terms()).contains(queryTerm) ? 2 : 1;
+        }
+        return score;
+    }
+
+    private void add(IndexedBeer beer) {
+        int doc;
+        if (freeDocCount > 0) {
+            doc = freeDocs[--freeDocCount];
+        } else {
+            if (docCount == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            doc = docCount++;
+        }
+        docs[doc] = beer;
+        docsById.put(beer.id(), doc);
+        for (String term : beer.terms()) {
+            terms.computeIfAbsent(term, _ -> new Postings()).add(doc);
+        }
+        if (beer.upc() != null) {
+            upcs.put(beer.upc(), beer.id());
+        }
+    }
+
+    private void remove(int doc) {
+        IndexedBeer beer = docs[doc];
+        docs[doc] = null;
+        docsById.remove(beer.id());
+        if (freeDocCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeDocs.length * 2);
+        }
+        freeDocs[freeDocCount++] = doc;
+        for (String term : beer.terms()) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(doc) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        if (beer.upc() != null) {
+            upcs.remove(beer.upc(), beer.id());
+        }
+    }
+
+    private interface DocSet {
+
+        boolean contains(int doc);
+
+        /**
+         * @return the first document at or after {@code from}, or -1
+         */
+        int next(int from);
+    }
+
+    /**
+     * Sorted document numbers of one term.
+     */
+    private static final class Postings implements DocSet {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            // new documents are numbered upwards, reused numbers are rare
+            int index = size == 0 || docs[size - 1] < doc ? -size - 1 : Arrays.binarySearch(docs, 0, size, doc);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+            docs[insertAt] = doc;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            size--;
+            if (size > 0 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, docs.length / 2);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+
+        @Override
+        public int next(int from) {
+            int index = Arrays.binarySearch(docs, 0, size, from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < size ? docs[index] : -1;
+        }
+    }
+
+    private record TermMatches(Collection<Postings> postings, long count) {
+    }
+
+    private record IndexedBeer(UUID id, Long version, String beerName, String upc, String[] terms) {
+    }
+
+    private record Ranked(IndexedBeer beer, int score) {
+    }
+}
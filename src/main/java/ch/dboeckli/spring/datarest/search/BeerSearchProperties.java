@@ -0,0 +1,22 @@
+package ch.dboeckli.spring.datarest.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "beer.search")
+@Data
+public class BeerSearchProperties {
+
+    /**
+     * Shorter query terms only match whole words; a one letter prefix would match most of a large catalog.
+     */
+    private int minPrefixLength = 2;
+
+    /**
+     * Matches ranked and counted per query. A broader query ranks only the first ones in index order and reports this
+     * many as its total; pages beyond it are empty.
+     */
+    private int maxCandidates = 10_000;
+}
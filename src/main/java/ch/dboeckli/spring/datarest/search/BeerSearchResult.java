@@ -0,0 +1,12 @@
+package ch.dboeckli.spring.datarest.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of ranked matches of {@link BeerNameIndex}.
+ */
+public record BeerSearchResult(List<UUID> ids, long total) {
+
+    public static final BeerSearchResult EMPTY = new BeerSearchResult(List.of(), 0);
+}
@@ -0,0 +1,11 @@
+package ch.dboeckli.spring.datarest.stats;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and stock of the beers of a style with the same price, a row of the reconciliation query.
+ */
+public record BeerPriceBucket(BeerStyleEnum beerStyle, BigDecimal price, Long count, Long quantityOnHand) {
+}
@@ -0,0 +1,19 @@
+package ch.dboeckli.spring.datarest.stats;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.stats")
+@Data
+public class BeerStatisticsProperties {
+
+    /**
+     * How often the aggregates are compared with a {@code group by} over the beer table, which picks up writes that
+     * bypass the beer events (plain jdbc, other replicas).
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+}
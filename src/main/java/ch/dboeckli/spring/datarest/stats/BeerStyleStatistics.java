@@ -0,0 +1,272 @@
+package ch.dboeckli.spring.datarest.stats;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count, stock and min/avg/max price per {@link BeerStyleEnum}, maintained incrementally from the committed
+ * {@link BeerChangedEvent}s, so reading the statistics costs one aggregate per style instead of a pass over the catalog.
+ * The prices of a style are kept as a sorted multiset, min and max survive the removal of the cheapest or most
+ * expensive beer.
+ * <p>
+ * A {@code group by} query replaces the aggregates when the application is ready, every
+ * {@code beer.stats.reconcile-interval} and after a change that can't be applied incrementally (an update without the
+ * previous state). Such changes only request a reconciliation, any number of them while one is pending runs a single
+ * query. The changes arriving while the query runs are replayed onto its result; one committed right before the query
+ * started may be counted twice, the next reconciliation corrects that.
+ */
+@Component
+@Slf4j
+public class BeerStyleStatistics {
+
+    private final BeerRepository beerRepository;
+    private final BeerStatisticsProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter drift;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private EnumMap<BeerStyleEnum, StyleAggregate> aggregates = emptyAggregates();
+    private List<BeerChangedEvent> changesDuringReconcile;
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+    private ScheduledExecutorService reconciler;
+
+    public BeerStyleStatistics(BeerRepository beerRepository, BeerStatisticsProperties properties,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.drift = meterRegistry.counter("beer.stats.drift");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+        long interval = properties.getReconcileInterval().toMillis();
+        reconciler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("beer-stats-reconcile").daemon().factory());
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return one entry per style, in the order of {@link BeerStyleEnum}
+     */
+    public List<BeerStyleStats> snapshot() {
+        lock.lock();
+        try {
+            List<BeerStyleStats> stats = new ArrayList<>(aggregates.size());
+            aggregates.forEach((style, aggregate) -> stats.add(aggregate.toStats(style)));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        onBeersChanged(new BeerBulkChangedEvent(List.of(event)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        boolean applied = true;
+        lock.lock();
+        try {
+            if (changesDuringReconcile != null) {
+                changesDuringReconcile.addAll(event.changes());
+            }
+            for (BeerChangedEvent change : event.changes()) {
+                if (!apply(aggregates, change)) {
+                    log.debug("{} of beer {} without previous state, reconciling the style statistics", change.type(), change.beerId());
+                    applied = false;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!applied) {
+            requestReconcile();
+        }
+    }
+
+    /**
+     * Replaces the aggregates with the result of the {@code group by} query plus the changes that arrived meanwhile.
+     *
+     * @return {@code false} if one of those changes could not be applied, another reconciliation is requested then
+     */
+    public synchronized boolean reconcile() {
+        long started = System.nanoTime();
+        lock.lock();
+        try {
+            changesDuringReconcile = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        List<BeerPriceBucket> buckets;
+        try {
+            buckets = readOnlyTransaction.execute(status -> beerRepository.findPriceBuckets());
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                changesDuringReconcile = null;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        EnumMap<BeerStyleEnum, StyleAggregate> reconciled = emptyAggregates();
+        for (BeerPriceBucket bucket : Objects.requireNonNull(buckets)) {
+            if (bucket.beerStyle() != null) {
+                reconciled.get(bucket.beerStyle()).add(bucket.price(), bucket.count(), bucket.quantityOnHand() == null ? 0 : bucket.quantityOnHand());
+            }
+        }
+        boolean complete = true;
+        int replayed;
+        lock.lock();
+        try {
+            replayed = changesDuringReconcile.size();
+            for (BeerChangedEvent change : changesDuringReconcile) {
+                complete &= apply(reconciled, change);
+            }
+            changesDuringReconcile = null;
+            if (replayed == 0 && !reconciled.equals(aggregates)) {
+                drift.increment();
+                log.info("Style statistics drifted from the database, replaced them");
+            }
+            aggregates = reconciled;
+        } finally {
+            lock.unlock();
+        }
+        if (!complete) {
+            requestReconcile();
+        }
+        log.debug("Reconciled the style statistics from {} price buckets and {} replayed changes in {} ms", buckets.size(), replayed,
+            (System.nanoTime() - started) / 1_000_000);
+        return complete;
+    }
+
+    private void requestReconcile() {
+        if (reconciler != null && reconcileRequested.compareAndSet(false, true)) {
+            reconciler.execute(() -> {
+                // changes from now on need another run, the query below may not see them
+                reconcileRequested.set(false);
+                reconcileQuietly();
+            });
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Reconciling the style statistics failed", e);
+        }
+    }
+
+    /**
+     * @return {@code false} if the change could not be applied because the previous state is unknown
+     */
+    private static boolean apply(EnumMap<BeerStyleEnum, StyleAggregate> aggregates, BeerChangedEvent event) {
+        BeerState previous = event.previous();
+        if (previous == null && event.type() != BeerChangedEvent.ChangeType.CREATED) {
+            return false;
+        }
+        if (previous != null && previous.beerStyle() != null) {
+            aggregates.get(previous.beerStyle()).add(previous.price(), -1, -quantity(previous));
+        }
+        BeerState current = event.current();
+        if (current != null && current.beerStyle() != null) {
+            aggregates.get(current.beerStyle()).add(current.price(), 1, quantity(current));
+        }
+        return true;
+    }
+
+    private static long quantity(BeerState state) {
+        return state.quantityOnHand() == null ? 0 : state.quantityOnHand();
+    }
+
+    private static EnumMap<BeerStyleEnum, StyleAggregate> emptyAggregates() {
+        EnumMap<BeerStyleEnum, StyleAggregate> aggregates = new EnumMap<>(BeerStyleEnum.class);
+        for (BeerStyleEnum style : BeerStyleEnum.values()) {
+            aggregates.put(style, new StyleAggregate());
+        }
+        return aggregates;
+    }
+
+    /**
+     * Only used under the lock.
+     */
+    private static final class StyleAggregate {
+
+        private long count;
+        private long quantityOnHand;
+        private long pricedCount;
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private final TreeMap<BigDecimal, Long> prices = new TreeMap<>();
+
+        private void add(BigDecimal price, long beers, long quantity) {
+            count += beers;
+            quantityOnHand += quantity;
+            if (price == null) {
+                return;
+            }
+            pricedCount += beers;
+            priceSum = priceSum.add(price.multiply(BigDecimal.valueOf(beers)));
+            Long remaining = prices.merge(price, beers, Long::sum);
+            if (remaining == 0) {
+                prices.remove(price);
+            }
+        }
+
+        private BeerStyleStats toStats(BeerStyleEnum style) {
+            if (pricedCount <= 0 || prices.isEmpty()) {
+                return new BeerStyleStats(style, count, quantityOnHand, null, null, null);
+            }
+            BigDecimal average = priceSum.divide(BigDecimal.valueOf(pricedCount), 2, RoundingMode.HALF_UP);
+            return new BeerStyleStats(style, count, quantityOnHand, prices.firstKey(), average, prices.lastKey());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StyleAggregate that
+                && count == that.count
+                && quantityOnHand == that.quantityOnHand
+                && pricedCount == that.pricedCount
+                && priceSum.compareTo(that.priceSum) == 0
+                && prices.equals(that.prices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, quantityOnHand, pricedCount);
+        }
+    }
+}
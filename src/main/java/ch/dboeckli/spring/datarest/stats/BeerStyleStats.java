@@ -0,0 +1,18 @@
+package ch.dboeckli.spring.datarest.stats;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+
+import java.math.BigDecimal;
+
+/**
+ * @param count          number of beers of the style
+ * @param quantityOnHand stock of all beers of the style
+ * @param minPrice       {@code null} if no beer of the style has a price, as {@code avgPrice} and {@code maxPrice}
+ */
+public record BeerStyleStats(BeerStyleEnum beerStyle,
+                             long count,
+                             long quantityOnHand,
+                             BigDecimal minPrice,
+                             BigDecimal avgPrice,
+                             BigDecimal maxPrice) {
+}
@@ -0,0 +1,159 @@
+package ch.dboeckli.spring.datarest.web;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.metrics.BeerStatementCounter;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.writebehind.BeerWriteBehindBuffer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Writes of the web forms, one transaction each: create is a plain insert, edit reads the current state and writes the
+ * editable fields with a versioned {@code update}, delete reads the current state and deletes by id. The read is the
+ * previous state of the {@link BeerChangedEvent}, the style statistics and the indexes apply the change from it instead
+ * of reconciling; it also tells a missing beer from a conflicting change without a further statement.
+ * <p>
+ * Edit and delete are plain JDBC and bypass the Hibernate listeners: the event is published here, and only the beer is
+ * evicted from the second level cache after the commit, where a JPQL bulk statement would drop the whole region.
+ * Metrics: {@code beer.web.form.submissions{operation, outcome}} and {@code beer.web.form.statements{operation}}.
+ */
+@Service
+@Slf4j
+public class BeerFormService {
+
+    static final String SUBMISSIONS = "beer.web.form.submissions";
+    static final String STATEMENTS = "beer.web.form.statements";
+
+    // beer_style holds the ordinal, as mapped by Beer
+    private static final String UPDATE = "update beer set beer_name = ?, beer_style = ?, upc = ?, quantity_on_hand = ?, price = ?, "
+        + "version = version + 1, last_modified_date = ? where id = ? and version = ?";
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.TINYINT, Types.VARCHAR, Types.INTEGER, Types.DECIMAL,
+        Types.TIMESTAMP, Types.VARCHAR, Types.BIGINT};
+    private static final String DELETE = "delete from beer where id = ?";
+
+    public enum Outcome {
+        APPLIED, NOT_FOUND, CONFLICT
+    }
+
+    private final BeerRepository beerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BeerWriteBehindBuffer beerWriteBehindBuffer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public BeerFormService(BeerRepository beerRepository, JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                           ApplicationEventPublisher eventPublisher, BeerWriteBehindBuffer beerWriteBehindBuffer,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.beerWriteBehindBuffer = beerWriteBehindBuffer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Inserts the form fields as a new beer; id, version and timestamps of the form are ignored.
+     */
+    public Beer create(Beer form) {
+        Beer beer = Beer.builder()
+            .beerName(form.getBeerName())
+            .beerStyle(form.getBeerStyle())
+            .upc(form.getUpc())
+            .quantityOnHand(form.getQuantityOnHand())
+            .price(form.getPrice())
+            .build();
+        return measured("create", () -> transactionTemplate.execute(status -> beerRepository.save(beer)), created -> Outcome.APPLIED);
+    }
+
+    /**
+     * Writes the form fields if the beer still has the version of the form.
+     */
+    public Outcome update(UUID id, long version, Beer form) {
+        beerWriteBehindBuffer.flushBefore(id);
+        return evicted(id, measured("update", () -> transactionTemplate.execute(status -> {
+            Optional<BeerState> previous = beerRepository.findStateById(id);
+            if (previous.isEmpty()) {
+                return Outcome.NOT_FOUND;
+            }
+            if (previous.get().version() != version) {
+                return Outcome.CONFLICT;
+            }
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            Object[] arguments = {form.getBeerName(), form.getBeerStyle() == null ? null : form.getBeerStyle().ordinal(),
+                form.getUpc(), form.getQuantityOnHand(), form.getPrice(), now, id.toString(), version};
+            if (jdbcTemplate.update(UPDATE, arguments, UPDATE_TYPES) == 0) {
+                // changed or deleted since the read
+                return Outcome.CONFLICT;
+            }
+            eventPublisher.publishEvent(BeerChangedEvent.updated(previous.get(), new BeerState(id, version + 1, form.getBeerName(),
+                form.getBeerStyle(), form.getUpc(), form.getQuantityOnHand(), form.getPrice(), now)));
+            return Outcome.APPLIED;
+        }), outcome -> outcome));
+    }
+
+    public Outcome delete(UUID id) {
+        beerWriteBehindBuffer.flushBefore(id);
+        return evicted(id, measured("delete", () -> transactionTemplate.execute(status -> {
+            Optional<BeerState> previous = beerRepository.findStateById(id);
+            if (previous.isEmpty() || jdbcTemplate.update(DELETE, id.toString()) == 0) {
+                return Outcome.NOT_FOUND;
+            }
+            eventPublisher.publishEvent(BeerChangedEvent.deleted(id, previous.get()));
+            return Outcome.APPLIED;
+        }), outcome -> outcome));
+    }
+
+    private Outcome evicted(UUID id, Outcome outcome) {
+        if (outcome == Outcome.APPLIED) {
+            entityManagerFactory.getCache().evict(Beer.class, id);
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+        return outcome;
+    }
+
+    private <T> T measured(String operation, Supplier<T> work, Function<T, Outcome> outcomeOf) {
+        long statementsBefore = BeerStatementCounter.count();
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = outcomeOf.apply(result).name().toLowerCase();
+            return result;
+        } finally {
+            long statements = BeerStatementCounter.count() - statementsBefore;
+            Timer.builder(SUBMISSIONS)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(STATEMENTS)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(statements);
+            log.debug("Web form {} of beer took {} statements, outcome {}", operation, statements, outcome);
+        }
+    }
+}
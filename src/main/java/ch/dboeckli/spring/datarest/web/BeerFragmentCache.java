@@ -0,0 +1,119 @@
+package ch.dboeckli.spring.datarest.web;
+
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rendered fragments of the {@code /web/beers} pages by page (or cursor) and size, least recently used first out once
+ * {@code beer.web.fragment-cache.max-size} is exceeded. The data version is a generation counter: every committed beer
+ * change starts a new one and drops all fragments.
+ */
+@Component
+@Slf4j
+public class BeerFragmentCache {
+
+    private final BeerWebProperties properties;
+    private final LinkedHashMap<String, BeerListFragments> fragments = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public BeerFragmentCache(BeerWebProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = meterRegistry.counter("beer.web.fragment.cache", "result", "hit");
+        this.misses = meterRegistry.counter("beer.web.fragment.cache", "result", "miss");
+        this.evictions = meterRegistry.counter("beer.web.fragment.cache.evictions");
+        meterRegistry.gauge("beer.web.fragment.cache.bytes", bytes);
+        meterRegistry.gauge("beer.web.fragment.cache.entries", this, BeerFragmentCache::size);
+    }
+
+    public boolean isEnabled() {
+        return properties.getFragmentCache().isEnabled();
+    }
+
+    public BeerListFragments get(String key) {
+        BeerListFragments cached;
+        lock.lock();
+        try {
+            cached = fragments.get(key);
+        } finally {
+            lock.unlock();
+        }
+        (cached == null ? misses : hits).increment();
+        return cached;
+    }
+
+    /**
+     * Generation to pass to {@link #put}, taken before the page is read.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the fragments unless a change was committed since {@code generationBefore}, they could be stale already.
+     */
+    public void put(String key, BeerListFragments rendered, long generationBefore) {
+        lock.lock();
+        try {
+            if (generation.get() != generationBefore) {
+                return;
+            }
+            BeerListFragments replaced = fragments.put(key, rendered);
+            bytes.addAndGet(rendered.weight() - (replaced == null ? 0 : replaced.weight()));
+            Iterator<BeerListFragments> leastRecentlyUsed = fragments.values().iterator();
+            while (bytes.get() > properties.getFragmentCache().getMaxSize().toBytes() && leastRecentlyUsed.hasNext()) {
+                bytes.addAndGet(-leastRecentlyUsed.next().weight());
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            fragments.clear();
+            bytes.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return fragments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeerChanged(BeerChangedEvent event) {
+        log.debug("Dropping cached beer list fragments after {} of {}", event.type(), event.beerId());
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBeersChanged(BeerBulkChangedEvent event) {
+        log.debug("Dropping cached beer list fragments after {} bulk changes", event.changes().size());
+        invalidate();
+    }
+}
@@ -0,0 +1,92 @@
+package ch.dboeckli.spring.datarest.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders a template or fragment ({@code "beers :: rows"}) to a string through the regular Thymeleaf view, so links,
+ * the Spring expression context and the request data value processor work as in a full page. The response is only
+ * used to encode urls, status, headers and body stay untouched.
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerFragmentRenderer {
+
+    private final ThymeleafViewResolver thymeleafViewResolver;
+
+    public String render(String viewName, Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+        Locale locale = RequestContextUtils.getLocale(request);
+        try {
+            View view = thymeleafViewResolver.resolveViewName(viewName, locale);
+            if (view == null) {
+                throw new IllegalStateException("No view " + viewName);
+            }
+            CapturingResponse capturing = new CapturingResponse(response);
+            view.render(model, request, capturing);
+            return capturing.body();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Rendering " + viewName + " failed", e);
+        }
+    }
+
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final StringWriter body = new StringWriter();
+        private final PrintWriter writer = new PrintWriter(body);
+
+        private CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            throw new UnsupportedOperationException("Fragments are rendered as characters");
+        }
+
+        @Override
+        public void setContentType(String type) {
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+        }
+
+        @Override
+        public void flushBuffer() {
+            writer.flush();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        private String body() {
+            writer.flush();
+            return body.toString();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ch.dboeckli.spring.datarest.web;
+
+import java.util.Map;
+
+/**
+ * Rendered pager and table rows of a {@code /web/beers} page, with the model attributes they were rendered from.
+ */
+public record BeerListFragments(Map<String, Object> attributes, String pagerHtml, String rowsHtml) {
+
+    /**
+     * Approximate heap size, the attributes are about as large as the rows rendered from them.
+     */
+    long weight() {
+        return 2L * (pagerHtml.length() + 2L * rowsHtml.length());
+    }
+}
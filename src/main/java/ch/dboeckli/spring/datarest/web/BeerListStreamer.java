@@ -0,0 +1,112 @@
+package ch.dboeckli.spring.datarest.web;
+
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams large {@code /web/beers} pages: the page without rows is rendered and flushed before the rows are read, then
+ * the rows follow in chunks of {@code beer.web.streaming.chunk-size}, one {@code <tbody>} each. The time to the first
+ * byte no longer depends on the page size and the page is never buffered as a whole.
+ * <p>
+ * The rows are read from an open result set while they are written, a slow client holds its connection meanwhile.
+ */
+@Component
+@Slf4j
+public class BeerListStreamer {
+
+    static final String ROWS_MARKER = "<!--beer-rows-->";
+
+    private final BeerRepository beerRepository;
+    private final BeerFragmentRenderer beerFragmentRenderer;
+    private final BeerWebProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BeerListStreamer(BeerRepository beerRepository, BeerFragmentRenderer beerFragmentRenderer,
+                            BeerWebProperties properties, PlatformTransactionManager transactionManager) {
+        this.beerRepository = beerRepository;
+        this.beerFragmentRenderer = beerFragmentRenderer;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean streams(int size) {
+        int threshold = properties.getStreaming().getThreshold();
+        return threshold > 0 && size >= threshold;
+    }
+
+    /**
+     * @param model attributes of the page except the beers
+     */
+    public void stream(Map<String, Object> model, int page, int size, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        Map<String, Object> shellModel = new HashMap<>(model);
+        shellModel.put("rowsHtml", ROWS_MARKER);
+        String shell = beerFragmentRenderer.render(BeerWebController.BEERS_TEMPLATE, shellModel, request, response);
+        int rows = shell.indexOf(ROWS_MARKER);
+
+        response.setContentType(MediaType.TEXT_HTML_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter writer = response.getWriter();
+        writer.write(shell, 0, rows);
+        response.flushBuffer();
+
+        int chunkSize = properties.getStreaming().getChunkSize();
+        long started = System.nanoTime();
+        Integer streamed = readOnlyTransaction.execute(status -> {
+            int count = 0;
+            try (Stream<BeerSummary> beers = beerRepository.streamSummariesBy(PageRequest.of(page, size))) {
+                List<BeerSummary> chunk = new ArrayList<>(chunkSize);
+                for (Iterator<BeerSummary> iterator = beers.iterator(); iterator.hasNext(); ) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize) {
+                        writeRows(chunk, model, request, response);
+                        count += chunk.size();
+                        chunk.clear();
+                    }
+                }
+                writeRows(chunk, model, request, response);
+                count += chunk.size();
+            }
+            return count;
+        });
+
+        writer.write(shell, rows + ROWS_MARKER.length(), shell.length() - rows - ROWS_MARKER.length());
+        writer.flush();
+        log.debug("Streamed {} beers of page {} in {} ms", streamed, page, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void writeRows(List<BeerSummary> chunk, Map<String, Object> model, HttpServletRequest request,
+                           HttpServletResponse response) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<String, Object> chunkModel = new HashMap<>(model);
+        chunkModel.put("beers", chunk);
+        try {
+            response.getWriter().write(beerFragmentRenderer.render(BeerWebController.ROWS_FRAGMENT, chunkModel, request, response));
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package ch.dboeckli.spring.datarest.web;
 
+import ch.dboeckli.spring.datarest.cache.BeerCountCache;
+import ch.dboeckli.spring.datarest.datasource.BeerRoutingDataSource;
 import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.paging.BeerKeysetPage;
+import ch.dboeckli.spring.datarest.paging.BeerKeysetPager;
+import ch.dboeckli.spring.datarest.paging.BeerScrollOrder;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
 import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,9 +23,11 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.IntStream;
 
@@ -31,25 +42,88 @@ public class BeerWebController {
     public static final String BEERS_TEMPLATE = "beers"  ;
     public static final String BEER_TEMPLATE = "beer";
     public static final String BEER_FORM_TEMPLATE = "beerForm";
+
+    public static final String PAGER_FRAGMENT = BEERS_TEMPLATE + " :: pager";
+    public static final String ROWS_FRAGMENT = BEERS_TEMPLATE + " :: rows";
     
     public static final String LIST_BEERS_PAGE = WEB_BASE_PATH + "/" + BEERS_TEMPLATE;
     public static final String BEER_PAGE = WEB_BASE_PATH + "/" + BEER_TEMPLATE;
 
     public static final String REDIRECT_PREFIX = "redirect:";
+
+    /**
+     * Count cache key of {@code findAllSummariesBy}, the paged pages share the total with the streamed ones.
+     */
+    private static final String SUMMARIES_QUERY = "findAllSummariesBy";
     
     private final BeerRepository beerRepository;
+    private final BeerKeysetPager beerKeysetPager;
+    private final BeerFormService beerFormService;
+    private final BeerFragmentCache beerFragmentCache;
+    private final BeerFragmentRenderer beerFragmentRenderer;
+    private final BeerListStreamer beerListStreamer;
+    private final BeerCountCache beerCountCache;
 
     @GetMapping("/" + BEERS_TEMPLATE)
     public String listBeers(Model model,
                             @RequestParam(defaultValue = "0") int page,
-                            @RequestParam(defaultValue = "25") int size) {
-        Page<Beer> beerPage = beerRepository.findAll(PageRequest.of(page, size));
-        model.addAttribute("beers", beerPage.getContent());
+                            @RequestParam(defaultValue = "25") int size,
+                            @RequestParam(required = false) String cursor,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        model.addAttribute("size", size);
+        if (cursor == null && beerListStreamer.streams(size)) {
+            // large page: the totals come from the count cache, the rows are streamed after the top of the page
+            model.addAttribute("keyset", false);
+            addPagination(model, page, size, beerCountCache.count(SUMMARIES_QUERY, new Object[0], beerRepository::countSummariesBy));
+            beerListStreamer.stream(model.asMap(), page, size, request, response);
+            return null;
+        }
+
+        String fragmentKey = cursor != null ? "cursor:" + cursor + ":" + size : "page:" + page + ":" + size;
+        if (beerFragmentCache.isEnabled()) {
+            BeerListFragments cached = beerFragmentCache.get(fragmentKey);
+            if (cached != null) {
+                model.addAllAttributes(cached.attributes());
+                model.addAttribute("pagerHtml", cached.pagerHtml());
+                model.addAttribute("rowsHtml", cached.rowsHtml());
+                return BEERS_TEMPLATE;
+            }
+        }
+        long generation = beerFragmentCache.generation();
+
+        try (var _ = BeerRoutingDataSource.refill()) {
+            if (cursor != null) {
+                // keyset mode: ordered by name, no offset scan and no count query
+                BeerKeysetPage keysetPage = beerKeysetPager.scroll(BeerScrollOrder.NAME, cursor, size);
+                model.addAttribute("keyset", true);
+                model.addAttribute("beers", keysetPage.content());
+                model.addAttribute("nextCursor", keysetPage.nextCursor());
+            } else {
+                model.addAttribute("keyset", false);
+                Page<BeerSummary> beerPage = beerRepository.findAllSummariesBy(PageRequest.of(page, size));
+                model.addAttribute("beers", beerPage.getContent());
+                addPagination(model, page, size, beerPage.getTotalElements());
+            }
+        }
+
+        if (beerFragmentCache.isEnabled()) {
+            Map<String, Object> attributes = new LinkedHashMap<>(model.asMap());
+            String pagerHtml = beerFragmentRenderer.render(PAGER_FRAGMENT, attributes, request, response);
+            String rowsHtml = beerFragmentRenderer.render(ROWS_FRAGMENT, attributes, request, response);
+            beerFragmentCache.put(fragmentKey, new BeerListFragments(Collections.unmodifiableMap(attributes), pagerHtml, rowsHtml), generation);
+            model.addAttribute("pagerHtml", pagerHtml);
+            model.addAttribute("rowsHtml", rowsHtml);
+        }
+        return BEERS_TEMPLATE;
+    }
+
+    private void addPagination(Model model, int page, int size, long totalItems) {
+        int totalPages = (int) ((totalItems + size - 1) / size);
         model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", beerPage.getTotalPages());
-        model.addAttribute("totalItems", beerPage.getTotalElements());
+        model.addAttribute("totalPages", totalPages);
+        model.addAttribute("totalItems", totalItems);
 
-        int totalPages = beerPage.getTotalPages();
         if (totalPages > 0) {
             List<Integer> pageNumbers = IntStream.rangeClosed(1, totalPages)
                 .boxed()
@@ -64,13 +138,13 @@ public class BeerWebController {
 
         model.addAttribute("startPage", startPage);
         model.addAttribute("endPage", endPage);
-
-        return BEERS_TEMPLATE;
     }
 
     @GetMapping("/" + BEER_TEMPLATE + "/{id}")
-    public String getBeer(@PathVariable UUID id, Model model) {
+    public String getBeer(@PathVariable UUID id, Model model, HttpServletResponse response) {
         Beer beer = beerRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        // matched by BeerConditionalRequestFilter
+        response.setHeader(HttpHeaders.ETAG, "\"web-" + beer.getVersion() + "\"");
         model.addAttribute("beer", beer);
         return BEER_TEMPLATE;
     }
@@ -97,15 +171,7 @@ public class BeerWebController {
                 return BEER_FORM_TEMPLATE;
             } 
         }
-        Beer newBeer = new Beer();
-        newBeer.setBeerName(beer.getBeerName());
-        newBeer.setBeerStyle(beer.getBeerStyle());
-        newBeer.setUpc(beer.getUpc());
-        newBeer.setQuantityOnHand(beer.getQuantityOnHand());
-        newBeer.setPrice(beer.getPrice());
-        newBeer.setCreatedDate(Timestamp.valueOf(LocalDateTime.now()));
-        newBeer.setLastModifiedDate(Timestamp.valueOf(LocalDateTime.now()));
-        Beer createdBeer = beerRepository.save(beer);
+        Beer createdBeer = beerFormService.create(beer);
         log.info("### Created new beer: {}", createdBeer);
         return REDIRECT_PREFIX + LIST_BEERS_PAGE;
     }
@@ -121,26 +187,23 @@ public class BeerWebController {
     @PostMapping("/" + BEER_TEMPLATE + "/edit/{id}")
     public String updateBeer(@PathVariable UUID id, @Valid @ModelAttribute("beer") Beer beer) {
         log.info("### Updating beer: {}", id);
-        Beer existingBeer = beerRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Beer not found"));
-        
-        // Update the fields of the existing beer
-        existingBeer.setBeerName(beer.getBeerName());
-        existingBeer.setBeerStyle(beer.getBeerStyle());
-        existingBeer.setUpc(beer.getUpc());
-        existingBeer.setQuantityOnHand(beer.getQuantityOnHand());
-        existingBeer.setPrice(beer.getPrice());
-        
-        beerRepository.save(existingBeer);
-        log.info("### Updating beer: {} to {}", existingBeer, beer);
+        if (beer.getVersion() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Beer version missing");
+        }
+        switch (beerFormService.update(id, beer.getVersion(), beer)) {
+            case NOT_FOUND -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Beer not found");
+            case CONFLICT -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Beer was changed in the meantime");
+            case APPLIED -> log.info("### Updated beer: {}", id);
+        }
         return REDIRECT_PREFIX + LIST_BEERS_PAGE;
     }
 
     @PostMapping(BEER_TEMPLATE + "/delete/{id}")
     public String deleteBeer(@PathVariable UUID id) {
         log.info("Deleting beer with ID: {}", id);
-        beerRepository.deleteById(id);
-        log.info("Deleted beer with ID: {}", id);
+        if (beerFormService.delete(id) == BeerFormService.Outcome.APPLIED) {
+            log.info("Deleted beer with ID: {}", id);
+        }
         return REDIRECT_PREFIX + LIST_BEERS_PAGE;
     }
     
@@ -0,0 +1,44 @@
+package ch.dboeckli.spring.datarest.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "beer.web")
+@Data
+public class BeerWebProperties {
+
+    private FragmentCache fragmentCache = new FragmentCache();
+
+    private Streaming streaming = new Streaming();
+
+    @Data
+    public static class FragmentCache {
+
+        /**
+         * Cache the rendered table rows and pager of {@code /web/beers} per page, size and data version.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Memory budget of all cached fragments, least recently used pages are evicted beyond.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(8);
+    }
+
+    @Data
+    public static class Streaming {
+
+        /**
+         * Offset pages of at least this many beers are streamed instead of rendered as a whole, 0 to never stream.
+         */
+        private int threshold = 200;
+
+        /**
+         * Beers rendered and flushed at a time while streaming.
+         */
+        private int chunkSize = 100;
+    }
+}
@@ -0,0 +1,37 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Accepted but not yet written price and/or quantity on hand of a beer, {@code null} fields stay as they are. The values
+ * are absolute, writing an update twice gives the same row.
+ */
+public record BeerPendingUpdate(UUID beerId, BigDecimal price, Integer quantityOnHand) {
+
+    /**
+     * @return this update with the fields set in {@code newer} replaced
+     */
+    public BeerPendingUpdate merge(BeerPendingUpdate newer) {
+        return new BeerPendingUpdate(beerId,
+            newer.price() != null ? newer.price() : price,
+            newer.quantityOnHand() != null ? newer.quantityOnHand() : quantityOnHand);
+    }
+
+    /**
+     * Overlays the update on a detached beer, including the version the beer will have once it is flushed.
+     */
+    public void applyTo(Beer beer) {
+        if (price != null) {
+            beer.setPrice(price);
+        }
+        if (quantityOnHand != null) {
+            beer.setQuantityOnHand(quantityOnHand);
+        }
+        if (beer.getVersion() != null) {
+            beer.setVersion(beer.getVersion() + 1);
+        }
+    }
+}
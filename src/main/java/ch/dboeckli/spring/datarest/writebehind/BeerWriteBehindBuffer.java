@@ -0,0 +1,286 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind of price and stock updates: an accepted update is appended to {@link BeerWriteBehindLog} and merged
+ * into the pending update of its beer, every {@code beer.write-behind.flush-interval} the pending updates are written
+ * with one JDBC batch per {@code batch-size} beers. A burst of updates of the same beer costs one row update.
+ * <p>
+ * Pending updates are replayed from the log on startup. Other writes of a beer must call {@link #flushBefore} first,
+ * the buffered values would overwrite them otherwise.
+ * <p>
+ * The JDBC batch bypasses Hibernate: the {@link BeerChangedEvent}s are published here and the beers are evicted from
+ * the second level cache after the commit.
+ */
+@Component
+@Slf4j
+public class BeerWriteBehindBuffer {
+
+    private static final String UPDATE = "update beer set price = coalesce(?, price), quantity_on_hand = coalesce(?, quantity_on_hand), "
+        + "version = version + 1, last_modified_date = ? where id = ?";
+    private static final int[] UPDATE_TYPES = {Types.DECIMAL, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR};
+
+    private final BeerWriteBehindProperties properties;
+    private final BeerRepository beerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter flushed;
+    private final Counter dropped;
+    private final Counter requeued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<UUID, BeerPendingUpdate> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, BeerPendingUpdate> inFlight = new ConcurrentHashMap<>();
+    private BeerWriteBehindLog writeLog;
+    private ScheduledExecutorService flusher;
+
+    public BeerWriteBehindBuffer(BeerWriteBehindProperties properties, BeerRepository beerRepository, JdbcTemplate jdbcTemplate,
+                                 ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.beerRepository = beerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.accepted = meterRegistry.counter("beer.write-behind.updates", "result", "accepted");
+        this.rejected = meterRegistry.counter("beer.write-behind.updates", "result", "rejected");
+        this.flushed = meterRegistry.counter("beer.write-behind.updates", "result", "flushed");
+        this.dropped = meterRegistry.counter("beer.write-behind.updates", "result", "dropped");
+        this.requeued = meterRegistry.counter("beer.write-behind.requeued");
+        meterRegistry.gaugeMapSize("beer.write-behind.pending.beers", Tags.empty(), pending);
+        meterRegistry.gauge("beer.write-behind.log.updates", this, buffer -> buffer.writeLog == null ? 0 : buffer.writeLog.size());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            writeLog = new BeerWriteBehindLog(Path.of(properties.getDirectory()), properties.getLogSize().toBytes(), properties.isForce());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the write-behind log in " + properties.getDirectory(), e);
+        }
+        List<BeerPendingUpdate> replayed = writeLog.replay();
+        replayed.forEach(update -> pending.merge(update.beerId(), update, BeerPendingUpdate::merge));
+        long interval = properties.getFlushInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("beer-write-behind-flush").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Write-behind of beer updates enabled, replayed {} updates of {} beers, flushed every {} ms",
+            replayed.size(), pending.size(), interval);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flushQuietly();
+            writeLog.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Logs and buffers the update.
+     *
+     * @return {@code false} if the log is full, the update has to be written directly
+     */
+    public boolean submit(BeerPendingUpdate update) {
+        lock.lock();
+        try {
+            if (!writeLog.append(update) && !(writeLog.checkpoint(unflushed()) && writeLog.append(update))) {
+                rejected.increment();
+                return false;
+            }
+            pending.merge(update.beerId(), update, BeerPendingUpdate::merge);
+            accepted.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the buffered update of the beer, {@code null} if there is none
+     */
+    public BeerPendingUpdate pending(UUID beerId) {
+        BeerPendingUpdate update = pending.get(beerId);
+        BeerPendingUpdate writing = inFlight.get(beerId);
+        if (writing == null) {
+            return update;
+        }
+        return update == null ? writing : writing.merge(update);
+    }
+
+    /**
+     * Writes the buffered updates if there are any of this beer, to be called before writing the beer otherwise.
+     */
+    public void flushBefore(UUID beerId) {
+        if (pending.containsKey(beerId) || inFlight.containsKey(beerId)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all pending updates, one transaction per batch. A failed batch is put back and retried with the next flush.
+     *
+     * @return number of beers written
+     */
+    public synchronized int flush() {
+        if (writeLog == null) {
+            return 0;
+        }
+        int written = 0;
+        boolean finished = false;
+        List<BeerPendingUpdate> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            try {
+                written += write(batch);
+                finished = true;
+            } finally {
+                requeueUnwritten(batch);
+            }
+        }
+        if (finished) {
+            lock.lock();
+            try {
+                // the flushed updates are in the database and those of deleted beers dropped, both leave the log
+                writeLog.checkpoint(unflushed());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return written;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Writing buffered beer updates failed, {} beers pending", pending.size(), e);
+        }
+    }
+
+    private List<BeerPendingUpdate> takeBatch() {
+        lock.lock();
+        try {
+            List<BeerPendingUpdate> batch = new ArrayList<>(Math.min(pending.size(), properties.getBatchSize()));
+            Iterator<BeerPendingUpdate> updates = pending.values().iterator();
+            while (updates.hasNext() && batch.size() < properties.getBatchSize()) {
+                BeerPendingUpdate update = updates.next();
+                updates.remove();
+                inFlight.put(update.beerId(), update);
+                batch.add(update);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts the updates still in flight (the batch failed) back in front of the updates accepted meanwhile.
+     */
+    private void requeueUnwritten(List<BeerPendingUpdate> batch) {
+        lock.lock();
+        try {
+            for (BeerPendingUpdate update : batch) {
+                if (inFlight.remove(update.beerId()) != null) {
+                    pending.merge(update.beerId(), update, (newer, older) -> older.merge(newer));
+                    requeued.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int write(List<BeerPendingUpdate> batch) {
+        List<UUID> ids = batch.stream().map(BeerPendingUpdate::beerId).toList();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> arguments = batch.stream()
+            .map(update -> new Object[]{update.price(), update.quantityOnHand(), now, update.beerId().toString()})
+            .toList();
+        int written = Objects.requireNonNull(transactionTemplate.execute(status -> {
+            Map<UUID, BeerState> previous = beerRepository.findAllStatesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BeerState::id, Function.identity()));
+            int[] rows = jdbcTemplate.batchUpdate(UPDATE, arguments, UPDATE_TYPES);
+            Map<UUID, BeerState> current = beerRepository.findAllStatesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BeerState::id, Function.identity()));
+            int count = 0;
+            for (int i = 0; i < rows.length; i++) {
+                UUID id = ids.get(i);
+                if (rows[i] == 0 || !current.containsKey(id)) {
+                    dropped.increment();
+                    log.debug("Dropped buffered update of beer {}, it was deleted", id);
+                } else {
+                    eventPublisher.publishEvent(BeerChangedEvent.updated(previous.get(id), current.get(id)));
+                    count++;
+                }
+            }
+            return count;
+        }));
+        lock.lock();
+        try {
+            ids.forEach(inFlight::remove);
+        } finally {
+            lock.unlock();
+        }
+        ids.forEach(id -> entityManagerFactory.getCache().evict(Beer.class, id));
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        flushed.increment(written);
+        return written;
+    }
+
+    /**
+     * Everything acknowledged and not yet in the database, updates in flight before the newer pending ones. Called
+     * under the lock.
+     */
+    private Collection<BeerPendingUpdate> unflushed() {
+        if (inFlight.isEmpty()) {
+            return List.copyOf(pending.values());
+        }
+        List<BeerPendingUpdate> unflushed = new ArrayList<>(inFlight.values());
+        unflushed.addAll(pending.values());
+        return unflushed;
+    }
+}
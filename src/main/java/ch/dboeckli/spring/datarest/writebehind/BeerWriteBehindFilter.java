@@ -0,0 +1,194 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * With {@code beer.write-behind.enabled}, a {@code PATCH /api/v4/beer/{id}} that only sets {@code price} and/or
+ * {@code quantityOnHand} is handed to {@link BeerWriteBehindBuffer} and answered with {@code 202 Accepted}. Patches
+ * with {@code If-Match}, other properties or {@code null} values take the usual way.
+ * <p>
+ * Every other write whose path names a beer ({@code /api/v4/beer/{id}/..}, {@code /web/beer/edit/{id}}, ..) first
+ * waits for the buffered updates of that beer to be written.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+@RequiredArgsConstructor
+@Slf4j
+public class BeerWriteBehindFilter extends OncePerRequestFilter {
+
+    private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Set<String> BUFFERED_PROPERTIES = Set.of("price", "quantityOnHand");
+    private static final MediaType MERGE_PATCH_JSON = MediaType.valueOf("application/merge-patch+json");
+
+    private final BeerWriteBehindBuffer beerWriteBehindBuffer;
+    private final BeerRepository beerRepository;
+    private final RepositoryRestConfiguration repositoryRestConfiguration;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !beerWriteBehindBuffer.isEnabled()
+            || HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String itemPrefix = repositoryRestConfiguration.getBasePath().getPath() + "/beer/";
+
+        if (HttpMethod.PATCH.matches(request.getMethod()) && path.startsWith(itemPrefix)
+            && UUID_PATTERN.matcher(path.substring(itemPrefix.length())).matches() && isBufferable(request)) {
+            UUID beerId = UUID.fromString(path.substring(itemPrefix.length()));
+            byte[] body = request.getInputStream().readAllBytes();
+            BeerPendingUpdate update = parse(beerId, body);
+            if (update != null && beerRepository.findVersionById(beerId).isPresent() && beerWriteBehindBuffer.submit(update)) {
+                log.debug("Buffered {}", update);
+                response.setStatus(HttpServletResponse.SC_ACCEPTED);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+        }
+
+        Matcher beerIds = UUID_PATTERN.matcher(path);
+        while (beerIds.find()) {
+            beerWriteBehindBuffer.flushBefore(UUID.fromString(beerIds.group()));
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isBufferable(HttpServletRequest request) {
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null || request.getContentType() == null) {
+            return false;
+        }
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        return MediaType.APPLICATION_JSON.isCompatibleWith(contentType) || MERGE_PATCH_JSON.isCompatibleWith(contentType);
+    }
+
+    /**
+     * @return the update, {@code null} unless the body only sets price and/or quantity on hand to numbers
+     */
+    private BeerPendingUpdate parse(UUID beerId, byte[] body) {
+        JsonNode patch;
+        try {
+            patch = objectMapper.readTree(body);
+        } catch (JacksonException e) {
+            return null;
+        }
+        if (patch == null || !patch.isObject() || patch.isEmpty()) {
+            return null;
+        }
+        BigDecimal price = null;
+        Integer quantityOnHand = null;
+        for (Map.Entry<String, JsonNode> property : patch.properties()) {
+            JsonNode value = property.getValue();
+            if (!BUFFERED_PROPERTIES.contains(property.getKey()) || !value.isNumber()) {
+                return null;
+            }
+            if (property.getKey().equals("price")) {
+                price = value.decimalValue();
+                if (price.unscaledValue().bitLength() >= Long.SIZE) {
+                    return null;
+                }
+            } else if (value.isIntegralNumber() && value.canConvertToInt()) {
+                quantityOnHand = value.intValue();
+            } else {
+                return null;
+            }
+        }
+        return new BeerPendingUpdate(beerId, price, quantityOnHand);
+    }
+
+    /**
+     * Replays a body that was already read.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Durable log of the accepted {@link BeerPendingUpdate}s in two memory-mapped files of fixed size, used in turns.
+ * Records are appended to the active file; a checkpoint writes the updates still pending into the other file and only
+ * then switches to it by writing its header with the next epoch. Replay reads the file with the highest valid epoch
+ * up to the first record that is torn or of another epoch, so a crash in the middle of a checkpoint or an append loses
+ * nothing that was acknowledged.
+ * <p>
+ * A written record survives a crash of the process once it is in the page cache; with {@code force} it is synced
+ * to the device before {@link #append} returns. Not thread safe.
+ */
+final class BeerWriteBehindLog implements Closeable {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 49;
+
+    private static final int MAGIC = 0x42454552;
+    private static final int CHECKSUMMED_SIZE = RECORD_SIZE - Integer.BYTES;
+    private static final byte HAS_PRICE = 1;
+    private static final byte HAS_QUANTITY = 2;
+
+    private final FileChannel[] channels = new FileChannel[2];
+    private final MappedByteBuffer[] files = new MappedByteBuffer[2];
+    private final int capacity;
+    private final boolean force;
+    private int active;
+    private long epoch;
+    private int position;
+
+    BeerWriteBehindLog(Path directory, long size, boolean force) throws IOException {
+        Files.createDirectories(directory);
+        this.capacity = (int) Math.min(size, Integer.MAX_VALUE);
+        this.force = force;
+        for (int i = 0; i < 2; i++) {
+            channels[i] = FileChannel.open(directory.resolve("beer-write-behind-" + i + ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            files[i] = channels[i].map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * Reads the updates of the last checkpoint and appended since, in the order they were accepted. Must be called
+     * once before the log is written.
+     */
+    List<BeerPendingUpdate> replay() {
+        long epoch0 = validEpoch(files[0]);
+        long epoch1 = validEpoch(files[1]);
+        if (epoch0 < 0 && epoch1 < 0) {
+            active = 0;
+            epoch = 1;
+            writeHeader(files[0], epoch);
+            position = HEADER_SIZE;
+            return List.of();
+        }
+        active = epoch1 > epoch0 ? 1 : 0;
+        epoch = Math.max(epoch0, epoch1);
+        MappedByteBuffer file = files[active];
+        List<BeerPendingUpdate> updates = new ArrayList<>();
+        position = HEADER_SIZE;
+        BeerPendingUpdate update;
+        while (position + RECORD_SIZE <= capacity && (update = read(file, position)) != null) {
+            updates.add(update);
+            position += RECORD_SIZE;
+        }
+        return updates;
+    }
+
+    /**
+     * @return {@code false} if the active file is full
+     */
+    boolean append(BeerPendingUpdate update) {
+        if (position + RECORD_SIZE > capacity) {
+            return false;
+        }
+        writeRecord(files[active], position, update, epoch);
+        if (force) {
+            files[active].force(position, RECORD_SIZE);
+        }
+        position += RECORD_SIZE;
+        return true;
+    }
+
+    /**
+     * Replaces the log with the given updates.
+     *
+     * @return {@code false} if they don't fit into a file, the log is left as it was
+     */
+    boolean checkpoint(Collection<BeerPendingUpdate> pending) {
+        if (HEADER_SIZE + (long) pending.size() * RECORD_SIZE > capacity) {
+            return false;
+        }
+        int target = 1 - active;
+        MappedByteBuffer file = files[target];
+        long nextEpoch = epoch + 1;
+        // invalidate first, a crash before the new header is written keeps the current file
+        file.putLong(0, 0).putLong(8, 0);
+        int offset = HEADER_SIZE;
+        for (BeerPendingUpdate update : pending) {
+            writeRecord(file, offset, update, nextEpoch);
+            offset += RECORD_SIZE;
+        }
+        file.force();
+        writeHeader(file, nextEpoch);
+        file.force(0, HEADER_SIZE);
+        active = target;
+        epoch = nextEpoch;
+        position = offset;
+        return true;
+    }
+
+    int size() {
+        return (position - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            files[i].force();
+            channels[i].close();
+        }
+    }
+
+    private static void writeRecord(MappedByteBuffer file, int offset, BeerPendingUpdate update, long epoch) {
+        byte flags = 0;
+        long unscaledPrice = 0;
+        int priceScale = 0;
+        if (update.price() != null) {
+            flags |= HAS_PRICE;
+            unscaledPrice = update.price().unscaledValue().longValueExact();
+            priceScale = update.price().scale();
+        }
+        if (update.quantityOnHand() != null) {
+            flags |= HAS_QUANTITY;
+        }
+        file.putInt(offset, MAGIC)
+            .putLong(offset + 4, epoch)
+            .putLong(offset + 12, update.beerId().getMostSignificantBits())
+            .putLong(offset + 20, update.beerId().getLeastSignificantBits())
+            .put(offset + 28, flags)
+            .putLong(offset + 29, unscaledPrice)
+            .putInt(offset + 37, priceScale)
+            .putInt(offset + 41, update.quantityOnHand() == null ? 0 : update.quantityOnHand());
+        file.putInt(offset + CHECKSUMMED_SIZE, checksum(file, offset));
+    }
+
+    private BeerPendingUpdate read(MappedByteBuffer file, int offset) {
+        if (file.getInt(offset) != MAGIC || file.getLong(offset + 4) != epoch
+            || file.getInt(offset + CHECKSUMMED_SIZE) != checksum(file, offset)) {
+            return null;
+        }
+        byte flags = file.get(offset + 28);
+        BigDecimal price = (flags & HAS_PRICE) != 0
+            ? new BigDecimal(BigInteger.valueOf(file.getLong(offset + 29)), file.getInt(offset + 37))
+            : null;
+        Integer quantityOnHand = (flags & HAS_QUANTITY) != 0 ? file.getInt(offset + 41) : null;
+        return new BeerPendingUpdate(new UUID(file.getLong(offset + 12), file.getLong(offset + 20)), price, quantityOnHand);
+    }
+
+    private static int checksum(MappedByteBuffer file, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(file.slice(offset, CHECKSUMMED_SIZE));
+        return (int) crc.getValue();
+    }
+
+    private static void writeHeader(MappedByteBuffer file, long epoch) {
+        file.putLong(0, epoch).putLong(8, ~epoch);
+    }
+
+    /**
+     * @return the epoch of the file, {@code -1} if its header was never completely written
+     */
+    private static long validEpoch(MappedByteBuffer file) {
+        long epoch = file.getLong(0);
+        return epoch > 0 && file.getLong(8) == ~epoch ? epoch : -1;
+    }
+}
@@ -0,0 +1,43 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "beer.write-behind")
+@Data
+public class BeerWriteBehindProperties {
+
+    /**
+     * Accept {@code PATCH /api/v4/beer/{id}} of price and/or quantity on hand with {@code 202 Accepted} and write them
+     * in batches.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the two log files, replayed on startup. Every replica needs its own.
+     */
+    private String directory = "write-behind";
+
+    /**
+     * Size of each log file, about 50 bytes per accepted update. When both are full, updates are written directly.
+     */
+    private DataSize logSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Write every record to the storage device before acknowledging it, which also survives a crash of the machine,
+     * not only of the process. Costs a sync per update.
+     */
+    private boolean force = false;
+
+    private Duration flushInterval = Duration.ofMillis(100);
+
+    /**
+     * Beers updated per flush transaction.
+     */
+    private int batchSize = 500;
+}
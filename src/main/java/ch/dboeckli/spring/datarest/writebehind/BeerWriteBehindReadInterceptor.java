@@ -0,0 +1,52 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepositoryInterceptor;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Merges the buffered updates into {@code findById} (item resource, web detail) and {@code findVersionById} (ETags):
+ * the beer is detached and shows price, quantity on hand and version as they will be once flushed. Lists and searches
+ * show the buffered values after the flush.
+ * <p>
+ * The buffer is looked up lazily, it depends on the repository this interceptor is woven into.
+ */
+@Component
+@Order(50)
+@RequiredArgsConstructor
+public class BeerWriteBehindReadInterceptor implements BeerRepositoryInterceptor {
+
+    private final BeerWriteBehindProperties properties;
+    private final ObjectProvider<BeerWriteBehindBuffer> beerWriteBehindBuffer;
+    private final EntityManager entityManager;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!properties.isEnabled() || !(result instanceof Optional<?> found) || found.isEmpty()) {
+            return result;
+        }
+        String method = invocation.getMethod().getName();
+        if (method.equals("findById") && found.get() instanceof Beer beer) {
+            BeerPendingUpdate update = beerWriteBehindBuffer.getObject().pending(beer.getId());
+            if (update != null) {
+                if (entityManager.contains(beer)) {
+                    entityManager.detach(beer);
+                }
+                update.applyTo(beer);
+            }
+        } else if (method.equals("findVersionById") && found.get() instanceof Long version
+            && beerWriteBehindBuffer.getObject().pending((UUID) invocation.getArguments()[0]) != null) {
+            return Optional.of(version + 1);
+        }
+        return result;
+    }
+}
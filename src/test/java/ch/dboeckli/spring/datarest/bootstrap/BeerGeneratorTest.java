@@ -0,0 +1,49 @@
+package ch.dboeckli.spring.datarest.bootstrap;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerGeneratorTest {
+
+    @Test
+    void testGenerateIsDeterministicPerChunk() {
+        BeerGenerator generator = new BeerGenerator(Map.of(), 7);
+
+        List<Beer> first = generator.generate(3, 300, 400);
+        List<Beer> second = generator.generate(3, 300, 400);
+
+        assertAll(
+            () -> assertEquals(100, first.size()),
+            () -> assertEquals(first.stream().map(Beer::getBeerName).toList(), second.stream().map(Beer::getBeerName).toList()),
+            () -> assertEquals(BeerGenerator.UPC_PREFIX + "000000000300", first.getFirst().getUpc()),
+            () -> assertEquals(100, first.stream().map(Beer::getUpc).distinct().count())
+        );
+    }
+
+    @Test
+    void testStyleWeights() {
+        BeerGenerator generator = new BeerGenerator(Map.of(BeerStyleEnum.IPA, 3, BeerStyleEnum.LAGER, 1, BeerStyleEnum.GOSE, 0), 7);
+
+        Map<BeerStyleEnum, Long> styles = generator.generate(0, 0, 10_000).stream()
+            .collect(Collectors.groupingBy(Beer::getBeerStyle, Collectors.counting()));
+
+        assertAll(
+            () -> assertEquals(Set.of(BeerStyleEnum.IPA, BeerStyleEnum.LAGER), styles.keySet()),
+            () -> assertTrue(styles.get(BeerStyleEnum.IPA) > 2 * styles.get(BeerStyleEnum.LAGER))
+        );
+    }
+
+    @Test
+    void testStyleWeightsWithoutPositiveWeight() {
+        Map<BeerStyleEnum, Integer> weights = Map.of(BeerStyleEnum.IPA, 0);
+        assertThrows(IllegalArgumentException.class, () -> new BeerGenerator(weights, 7));
+    }
+}
@@ -0,0 +1,30 @@
+package ch.dboeckli.spring.datarest.bootstrap;
+
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = {
+    "beer.loader.synthetic-count=2500",
+    "beer.loader.chunk-size=1000",
+    "beer.loader.parallelism=2",
+    "beer.loader.background=false"
+})
+@DirtiesContext
+class BeerLoaderTest {
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testSampleAndSyntheticBeersAreLoaded() {
+        assertEquals(2530, beerRepository.count());
+        assertNotNull(beerRepository.findByUpc(BeerLoader.BEER_5_UPC));
+        assertNotNull(beerRepository.findByUpc(BeerGenerator.UPC_PREFIX + "000000002499"));
+    }
+}
@@ -0,0 +1,84 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@DirtiesContext
+class BeerCountCacheTest {
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerCountCache beerCountCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        beerCountCache.invalidate();
+    }
+
+    @Test
+    void testTotalIsCachedAcrossPages() {
+        double hitsBefore = hits();
+
+        Page<Beer> firstPage = beerRepository.findAll(PageRequest.of(0, 5));
+        Page<Beer> secondPage = beerRepository.findAll(PageRequest.of(1, 5));
+
+        assertAll(
+            () -> assertEquals(beerRepository.count(), firstPage.getTotalElements()),
+            () -> assertEquals(firstPage.getTotalElements(), secondPage.getTotalElements()),
+            () -> assertEquals(5, secondPage.getContent().size()),
+            () -> assertEquals(hitsBefore + 1, hits())
+        );
+    }
+
+    @Test
+    void testTotalIsCachedPerFilter() {
+        Page<Beer> ales = beerRepository.findAllByBeerStyle(BeerStyleEnum.ALE, PageRequest.of(0, 1));
+        Page<Beer> stouts = beerRepository.findAllByBeerStyle(BeerStyleEnum.STOUT, PageRequest.of(0, 1));
+
+        assertAll(
+            () -> assertEquals(beerRepository.countByBeerStyle(BeerStyleEnum.ALE), ales.getTotalElements()),
+            () -> assertEquals(beerRepository.countByBeerStyle(BeerStyleEnum.STOUT), stouts.getTotalElements())
+        );
+    }
+
+    @Test
+    void testTotalIsInvalidatedOnInsertAndDelete() {
+        long before = beerRepository.findAll(PageRequest.of(0, 5)).getTotalElements();
+
+        Beer saved = beerRepository.save(Beer.builder()
+            .beerName("Count Cache Lager")
+            .beerStyle(BeerStyleEnum.LAGER)
+            .upc("7000000000001")
+            .price(BigDecimal.ONE)
+            .quantityOnHand(1)
+            .build());
+        assertEquals(before + 1, beerRepository.findAll(PageRequest.of(0, 5)).getTotalElements());
+
+        beerRepository.deleteById(saved.getId());
+        assertEquals(before, beerRepository.findAll(PageRequest.of(0, 5)).getTotalElements());
+    }
+
+    private double hits() {
+        return meterRegistry.counter("beer.count.cache", "result", "hit").count();
+    }
+}
@@ -0,0 +1,151 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DirtiesContext
+@Import(BeerL2CacheTest.RecordingBroadcasterConfig.class)
+class BeerL2CacheTest {
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerL2CacheInvalidator beerL2CacheInvalidator;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    RecordingBroadcaster recordingBroadcaster;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindByIdIsServedFromTheSecondLevelCache() {
+        UUID beerId = beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst().getId();
+        entityManagerFactory.getCache().evict(Beer.class, beerId);
+        statistics.clear();
+
+        beerRepository.findById(beerId);
+        beerRepository.findById(beerId);
+
+        assertAll(
+            () -> assertTrue(entityManagerFactory.getCache().contains(Beer.class, beerId)),
+            () -> assertEquals(1, statistics.getDomainDataRegionStatistics(Beer.CACHE_REGION).getHitCount())
+        );
+    }
+
+    @Test
+    void testDerivedQueryIsServedFromTheQueryCache() {
+        String upc = beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst().getUpc();
+        statistics.clear();
+
+        Beer first = beerRepository.findByUpc(upc);
+        Beer second = beerRepository.findByUpc(upc);
+
+        assertAll(
+            () -> assertEquals(first.getId(), second.getId()),
+            () -> assertEquals(1, statistics.getQueryCacheHitCount())
+        );
+    }
+
+    @Test
+    void testEvictLocally() {
+        UUID beerId = beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst().getId();
+        beerRepository.findById(beerId);
+        assertTrue(entityManagerFactory.getCache().contains(Beer.class, beerId));
+
+        beerL2CacheInvalidator.evictLocally(List.of(beerId));
+
+        assertFalse(entityManagerFactory.getCache().contains(Beer.class, beerId));
+    }
+
+    @Test
+    void testEvictAllLocally() {
+        UUID beerId = beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst().getId();
+        beerRepository.findById(beerId);
+
+        beerL2CacheInvalidator.evictAllLocally();
+
+        assertFalse(entityManagerFactory.getCache().contains(Beer.class, beerId));
+    }
+
+    @Test
+    void testOneMessagePerTransaction() {
+        recordingBroadcaster.messages.clear();
+        List<Beer> beers = beerRepository.findAll(PageRequest.of(0, 2)).getContent();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(_ -> beers.forEach(beer -> {
+            Beer managed = beerRepository.findById(beer.getId()).orElseThrow();
+            managed.setQuantityOnHand(managed.getQuantityOnHand() == null ? 1 : managed.getQuantityOnHand() + 1);
+        }));
+
+        assertEquals(List.of(Set.of(beers.get(0).getId(), beers.get(1).getId())), recordingBroadcaster.messages);
+    }
+
+    @Test
+    void testHttpBroadcastRequiresToken() {
+        BeerL2CacheProperties properties = new BeerL2CacheProperties();
+        properties.getInvalidation().setMode(BeerL2CacheProperties.Mode.HTTP);
+
+        assertThrows(IllegalStateException.class, () -> new HttpBeerCacheInvalidationBroadcaster(properties));
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class RecordingBroadcasterConfig {
+
+        @Bean
+        RecordingBroadcaster recordingBroadcaster() {
+            return new RecordingBroadcaster();
+        }
+    }
+
+    static class RecordingBroadcaster implements BeerCacheInvalidationBroadcaster {
+
+        final List<Set<UUID>> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void broadcast(Collection<UUID> beerIds) {
+            messages.add(Set.copyOf(beerIds));
+        }
+
+        @Override
+        public void broadcastAll() {
+            messages.add(Set.of());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ch.dboeckli.spring.datarest.cache;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerResponseCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerResponseCache beerResponseCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        beerResponseCache.invalidate();
+    }
+
+    @Test
+    void testSecondRequestIsServedFromCache() throws Exception {
+        double hitsBefore = hits();
+
+        String first = mockMvc.perform(get("/api/v4/beer").param("size", "5").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String second = mockMvc.perform(get("/api/v4/beer").param("size", "5").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)))
+            .andReturn().getResponse().getContentAsString();
+
+        assertAll(
+            () -> assertEquals(first, second),
+            () -> assertEquals(1, beerResponseCache.size()),
+            () -> assertEquals(hitsBefore + 1, hits())
+        );
+    }
+
+    @Test
+    void testGzipForClientsAcceptingIt() throws Exception {
+        String plain = mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        MvcResult gzipped = mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn();
+
+        assertEquals(plain, gunzip(gzipped.getResponse().getContentAsByteArray()));
+    }
+
+    @Test
+    void testDeepPagesAreNotCached() throws Exception {
+        mockMvc.perform(get("/api/v4/beer").param("page", "3").param("size", "2").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+
+        assertEquals(0, beerResponseCache.size());
+    }
+
+    @Test
+    void testChangeDropsCachedPages() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/findByUpc").param("upc", BeerLoader.BEER_1_UPC).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+        assertEquals(1, beerResponseCache.size());
+
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_1_UPC);
+        String beerName = beer.getBeerName();
+        beer.setBeerName("Response Cache Test");
+        beerRepository.save(beer);
+        try {
+            assertEquals(0, beerResponseCache.size());
+            mockMvc.perform(get("/api/v4/beer/search/findByUpc").param("upc", BeerLoader.BEER_1_UPC).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.beerName", is("Response Cache Test")));
+        } finally {
+            Beer saved = beerRepository.findByUpc(BeerLoader.BEER_1_UPC);
+            saved.setBeerName(beerName);
+            beerRepository.save(saved);
+        }
+    }
+
+    private double hits() {
+        return meterRegistry.counter("beer.response.cache", "result", "hit").count();
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
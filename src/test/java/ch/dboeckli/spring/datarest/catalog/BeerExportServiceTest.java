@@ -0,0 +1,104 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerExportServiceTest {
+
+    @Autowired
+    BeerExportService beerExportService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void testExportNdjson() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = beerExportService.export(out, BeerCatalogFormat.NDJSON, null);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertAll(
+            () -> assertEquals(beerRepository.count(), exported),
+            () -> assertEquals(exported, lines.size()),
+            () -> assertTrue(lines.getFirst().startsWith("{")),
+            () -> assertTrue(lines.getFirst().contains("\"upc\""))
+        );
+    }
+
+    @Test
+    void testExportCsvCanBeImportedAgain() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        beerExportService.export(out, BeerCatalogFormat.CSV, null);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        Beer beer = BeerCsv.parse(lines.get(1));
+        assertAll(
+            () -> assertEquals(BeerCsv.EXPORT_HEADER, lines.getFirst()),
+            () -> assertEquals(beerRepository.count() + 1, lines.size()),
+            () -> assertNotNull(beerRepository.findByUpc(beer.getUpc()))
+        );
+    }
+
+    @Test
+    void testCsvQuotesLineBreaks() {
+        String line = BeerCsv.format(Beer.builder().beerName("Two\nLines").upc("1").build());
+
+        assertAll(
+            () -> assertTrue(line.startsWith("\"Two\nLines\",")),
+            () -> assertTrue(BeerCsv.togglesQuote(line.substring(0, line.indexOf('\n')))),
+            () -> assertTrue(BeerCsv.togglesQuote(line.substring(line.indexOf('\n') + 1))),
+            () -> assertEquals("Two\nLines", BeerCsv.parse(line).getBeerName())
+        );
+    }
+
+    @Test
+    void testExportSince() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = beerExportService.export(out, BeerCatalogFormat.NDJSON, Timestamp.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+
+        assertAll(
+            () -> assertEquals(0, exported),
+            () -> assertEquals(0, out.size())
+        );
+    }
+
+    @Test
+    void testExportEndpoint() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v4/beer/export").param("format", "CSV"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.parseMediaType(BeerCsv.MEDIA_TYPE)))
+            .andExpect(content().string(startsWith(BeerCsv.EXPORT_HEADER)));
+    }
+}
@@ -0,0 +1,187 @@
+package ch.dboeckli.spring.datarest.catalog;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.event.BeerBulkChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+@TestPropertySource(properties = {"beer.import.chunk-size=2", "beer.import.max-record-lines=3"})
+@Import(BeerImportServiceTest.RecordingListenerConfig.class)
+class BeerImportServiceTest {
+
+    @Autowired
+    BeerImportService beerImportService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RecordingListener recordingListener;
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.findAll().stream()
+            .filter(beer -> beer.getUpc().startsWith("71"))
+            .forEach(beerRepository::delete);
+    }
+
+    @Test
+    void testImportCsvInChunks() throws Exception {
+        String csv = """
+            beerName,beerStyle,upc,quantityOnHand,price
+            Import Lager,LAGER,7100000000001,10,9.99
+            "Import ""Stout"", Imperial",STOUT,7100000000002,,12.50
+            Import Ale,ALE,7100000000003,5,
+            """;
+
+        BeerImportReport report = beerImportService.importBeers(stream(csv), BeerCatalogFormat.CSV);
+
+        Beer stout = beerRepository.findByUpc("7100000000002");
+        assertAll(
+            () -> assertEquals(3, report.imported()),
+            () -> assertEquals(0, report.rejected()),
+            () -> assertEquals(2, report.chunks()),
+            () -> assertTrue(report.failedChunks().isEmpty()),
+            () -> assertEquals("Import \"Stout\", Imperial", stout.getBeerName()),
+            () -> assertEquals(BeerStyleEnum.STOUT, stout.getBeerStyle())
+        );
+    }
+
+    @Test
+    void testImportReportsInvalidLinesAndUpdatesByUpc() throws Exception {
+        String ndjson = """
+            {"beerName":"Import Pilsner","beerStyle":"PILSNER","upc":"7100000000011","quantityOnHand":1,"price":1.5}
+            {"beerName":"Import Unknown","beerStyle":"UNKNOWN","upc":"7100000000012"}
+            {"beerName":"Import Duplicate","beerStyle":"ALE","upc":"7100000000013"}
+            {"beerName":"Import Duplicate Again","beerStyle":"ALE","upc":"7100000000013"}
+            {"beerName":"Import Pilsner Reloaded","beerStyle":"PILSNER","upc":"7100000000011","quantityOnHand":7}
+            """;
+
+        BeerImportReport report = beerImportService.importBeers(stream(ndjson), BeerCatalogFormat.NDJSON);
+
+        assertAll(
+            () -> assertEquals(4, report.imported()),
+            () -> assertEquals(2, report.updated()),
+            () -> assertEquals(1, report.rejected()),
+            () -> assertEquals(1, report.failedChunks().size()),
+            () -> assertTrue(report.failedChunks().getFirst().committed()),
+            () -> assertTrue(report.failedChunks().getFirst().errors().getFirst().startsWith("Line 2:")),
+            () -> assertEquals("Import Duplicate Again", beerRepository.findByUpc("7100000000013").getBeerName()),
+            () -> assertEquals(7, beerRepository.findByUpc("7100000000011").getQuantityOnHand())
+        );
+    }
+
+    @Test
+    void testUnterminatedQuoteOnlyRejectsItsLine() throws Exception {
+        String csv = """
+            beerName,beerStyle,upc,quantityOnHand,price
+            "Open Quote,LAGER,7100000000041,1,1.00
+            Import Kolsch,LAGER,7100000000042,1,1.00
+            Import Dunkel,LAGER,7100000000043,1,1.00
+            "Two
+            Lines",ALE,7100000000044,1,1.00
+            """;
+
+        BeerImportReport report = beerImportService.importBeers(stream(csv), BeerCatalogFormat.CSV);
+
+        assertAll(
+            () -> assertEquals(3, report.imported()),
+            () -> assertEquals(1, report.rejected()),
+            () -> assertTrue(report.failedChunks().getFirst().errors().getFirst().startsWith("Line 2: quoted field not closed")),
+            () -> assertNotNull(beerRepository.findByUpc("7100000000042")),
+            () -> assertEquals("Two\nLines", beerRepository.findByUpc("7100000000044").getBeerName())
+        );
+    }
+
+    @Test
+    void testImportPublishesOneEventPerChunk() throws Exception {
+        recordingListener.events.clear();
+        recordingListener.singleChanges.set(0);
+        String csv = """
+            Import Bock,LAGER,7100000000031,1,2.00
+            Import Weizen,WHEAT,7100000000032,1,2.00
+            """;
+
+        beerImportService.importBeers(stream(csv), BeerCatalogFormat.CSV);
+
+        assertAll(
+            () -> assertEquals(1, recordingListener.events.size()),
+            () -> assertEquals(2, recordingListener.events.getFirst().changes().size()),
+            () -> assertEquals(0, recordingListener.singleChanges.get())
+        );
+    }
+
+    @Test
+    void testImportEndpoint() throws Exception {
+        mockMvc.perform(post("/api/v4/beer/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("""
+                    {"beerName":"Import Endpoint","beerStyle":"IPA","upc":"7100000000021","price":3.2}
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class RecordingListenerConfig {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener {
+
+        final List<BeerBulkChangedEvent> events = new CopyOnWriteArrayList<>();
+        final AtomicInteger singleChanges = new AtomicInteger();
+
+        @TransactionalEventListener
+        void onBeersChanged(BeerBulkChangedEvent event) {
+            events.add(event);
+        }
+
+        @TransactionalEventListener
+        void onBeerChanged(BeerChangedEvent event) {
+            if (event.current() != null && event.current().upc().startsWith("71000000000")) {
+                singleChanges.incrementAndGet();
+            }
+        }
+    }
+}
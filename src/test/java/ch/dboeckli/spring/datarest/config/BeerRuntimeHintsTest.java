@@ -0,0 +1,57 @@
+package ch.dboeckli.spring.datarest.config;
+
+import ch.dboeckli.spring.datarest.catalog.BeerImportLine;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.feed.BeerChangeFeedEntry;
+import ch.dboeckli.spring.datarest.metrics.BeerStatementCounter;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
+import ch.dboeckli.spring.datarest.projection.BeerSummaryProjection;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    BeerRuntimeHintsTest() {
+        new BeerRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testConstructorExpressionResultsCanBeInstantiated() {
+        assertAll(
+            () -> assertTrue(RuntimeHintsPredicates.reflection().onType(BeerSummary.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints)),
+            () -> assertTrue(RuntimeHintsPredicates.reflection().onType(BeerState.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints)),
+            () -> assertTrue(RuntimeHintsPredicates.reflection().onType(BeerStatementCounter.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints))
+        );
+    }
+
+    @Test
+    void testJsonTypesAreBound() {
+        assertAll(
+            () -> assertTrue(RuntimeHintsPredicates.reflection().onType(BeerImportLine.class).test(hints)),
+            () -> assertTrue(RuntimeHintsPredicates.reflection().onType(BeerChangeFeedEntry.class).test(hints))
+        );
+    }
+
+    @Test
+    void testProjectionProxyAndResources() {
+        assertAll(
+            () -> assertTrue(RuntimeHintsPredicates.proxies()
+                .forInterfaces(BeerSummaryProjection.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class).test(hints)),
+            () -> assertTrue(RuntimeHintsPredicates.resource().forResource("db/changelog/db.changelog-master.xml").test(hints)),
+            () -> assertTrue(RuntimeHintsPredicates.resource().forResource("caffeine-jcache.conf").test(hints))
+        );
+    }
+}
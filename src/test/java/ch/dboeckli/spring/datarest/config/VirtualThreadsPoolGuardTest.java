@@ -0,0 +1,36 @@
+package ch.dboeckli.spring.datarest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VirtualThreadsPoolGuardTest {
+
+    private final VirtualThreadsPoolGuard guard = new VirtualThreadsPoolGuard(new StandardEnvironment(), null, new VirtualThreadsPoolGuard.PoolLimits());
+
+    @Test
+    void testPoolWithinLimits() {
+        assertDoesNotThrow(() -> guard.verify(true, hikari(20, 5_000)));
+    }
+
+    @Test
+    void testPoolTooLargeForVirtualThreads() {
+        assertThrows(IllegalStateException.class, () -> guard.verify(true, hikari(200, 5_000)));
+        assertDoesNotThrow(() -> guard.verify(false, hikari(200, 5_000)));
+    }
+
+    @Test
+    void testConnectionTimeoutTooLongForVirtualThreads() {
+        assertThrows(IllegalStateException.class, () -> guard.verify(true, hikari(20, 30_000)));
+    }
+
+    private HikariDataSource hikari(int maximumPoolSize, long connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout);
+        return dataSource;
+    }
+}
@@ -0,0 +1,70 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerBatchControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testByIdsKeepsRequestOrderAndReportsMissing() throws Exception {
+        Beer first = beerRepository.findByUpc(BeerLoader.BEER_3_UPC);
+        Beer second = beerRepository.findByUpc(BeerLoader.BEER_1_UPC);
+        UUID unknown = UUID.randomUUID();
+
+        mockMvc.perform(get("/api/v4/beer/search/byIds")
+                .param("ids", first.getId() + "," + unknown + "," + second.getId())
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(2)))
+            .andExpect(jsonPath("$._embedded.beers[0].upc", is(BeerLoader.BEER_3_UPC)))
+            .andExpect(jsonPath("$._embedded.beers[1].upc", is(BeerLoader.BEER_1_UPC)))
+            .andExpect(jsonPath("$.missing", contains(unknown.toString())));
+    }
+
+    @Test
+    void testByUpcs() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byUpcs")
+                .param("upcs", BeerLoader.BEER_2_UPC, "0000000000000", BeerLoader.BEER_2_UPC)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(1)))
+            .andExpect(jsonPath("$._embedded.beers[0].upc", is(BeerLoader.BEER_2_UPC)))
+            .andExpect(jsonPath("$.missing", contains("0000000000000")));
+    }
+
+    @Test
+    void testTooManyKeys() throws Exception {
+        String ids = String.join(",", Collections.nCopies(101, "x")).replace("x", "%s");
+        Object[] randomIds = new Object[101];
+        for (int i = 0; i < randomIds.length; i++) {
+            randomIds[i] = UUID.randomUUID();
+        }
+
+        mockMvc.perform(get("/api/v4/beer/search/byIds")
+                .param("ids", ids.formatted(randomIds))
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,75 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.feed.BeerChangeFeed;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerChangeFeedControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerChangeFeed beerChangeFeed;
+
+    @Test
+    void testStreamsCommittedChanges() throws Exception {
+        long lastSeen = beerChangeFeed.nextSequence() - 1;
+        MvcResult result = mockMvc.perform(get("/api/v4/beer/changes")
+                .header("Last-Event-ID", beerChangeFeed.eventId(lastSeen))
+                .accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_3_UPC);
+        beer.setQuantityOnHand(beer.getQuantityOnHand() + 1);
+        beerRepository.save(beer);
+
+        String expected = "id:" + beerChangeFeed.eventId(lastSeen + 1);
+        MockHttpServletResponse response = result.getResponse();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        String content = response.getContentAsString();
+        assertTrue(content.contains(expected), content);
+        assertTrue(content.contains("event:updated"), content);
+        assertTrue(content.contains(beer.getId().toString()), content);
+    }
+
+    @Test
+    void testResetForIdOfAnotherProcess() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v4/beer/changes")
+                .header("Last-Event-ID", "0000000-1")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        MockHttpServletResponse response = result.getResponse();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains("event:reset") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(response.getContentAsString().contains("event:reset"), response.getContentAsString());
+    }
+}
@@ -1,5 +1,6 @@
 package ch.dboeckli.spring.datarest.controller;
 
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -32,4 +33,32 @@ class BeerControllerTest {
             .andExpect(jsonPath("$._embedded.beers[0].beerStyle", is("STOUT")))
             .andExpect(jsonPath("$._embedded.beers[0].upc", is("8380495518610")));
     }
+
+    @Test
+    void testGetAllBeersAsSummaries() throws Exception {
+        mockMvc.perform(get("/api/v4/beer")
+                .param("size", "5")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(5)))
+            .andExpect(jsonPath("$._embedded.beers[0].id").isString())
+            .andExpect(jsonPath("$._embedded.beers[0].price").exists())
+            .andExpect(jsonPath("$._embedded.beers[0].createdDate").doesNotExist())
+            .andExpect(jsonPath("$._embedded.beers[0].lastModifiedDate").doesNotExist())
+            .andExpect(jsonPath("$._embedded.beers[0]._links.self.href").isString())
+            .andExpect(jsonPath("$._links.next.href").isString())
+            .andExpect(jsonPath("$._links.search.href").isString())
+            .andExpect(jsonPath("$.page.size", is(5)));
+    }
+
+    @Test
+    void testGetBeerIsComplete() throws Exception {
+        String self = JsonPath.read(mockMvc.perform(get("/api/v4/beer").param("size", "1").accept(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getContentAsString(), "$._embedded.beers[0]._links.self.href");
+
+        mockMvc.perform(get(self).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.createdDate").exists())
+            .andExpect(jsonPath("$.lastModifiedDate").exists());
+    }
 }
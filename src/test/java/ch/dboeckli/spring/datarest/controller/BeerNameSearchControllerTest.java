@@ -0,0 +1,132 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import ch.dboeckli.spring.datarest.search.BeerNameIndex;
+import ch.dboeckli.spring.datarest.search.BeerSearchProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerNameSearchControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerNameIndex beerNameIndex;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testSearchByNamePrefixRanksShorterNamesFirst() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byName")
+                .param("q", "PORT")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(2)))
+            .andExpect(jsonPath("$._embedded.beers[0].beerName", is("PBS Porter")))
+            .andExpect(jsonPath("$._embedded.beers[1].beerName", is("Pinball Porter")))
+            .andExpect(jsonPath("$.page.totalElements", is(2)));
+    }
+
+    @Test
+    void testSearchByNameMatchesAllWords() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byName")
+                .param("q", "trail bik")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(1)))
+            .andExpect(jsonPath("$._embedded.beers[0].beerName", is("Bike Trail Pale")));
+    }
+
+    @Test
+    void testSearchByNamePages() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byName")
+                .param("q", "blessed")
+                .param("size", "1")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(1)))
+            .andExpect(jsonPath("$.page.totalElements", is(2)))
+            .andExpect(jsonPath("$._links.next.href", containsString("page=1")))
+            .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+    @Test
+    void testSearchByUpcPrefix() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byUpcPrefix")
+                .param("upc", BeerLoader.BEER_1_UPC)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers[0].upc", is(BeerLoader.BEER_1_UPC)));
+    }
+
+    @Test
+    void testInvalidPageSize() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/byName")
+                .param("q", "blessed")
+                .param("size", "0")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testIndexFollowsChanges() {
+        Beer beer = beerRepository.save(Beer.builder()
+            .beerName("Zwickelbräu Spezial")
+            .beerStyle(BeerStyleEnum.LAGER)
+            .upc("9" + UUID.randomUUID().toString().replace("-", "").substring(0, 11))
+            .price(new BigDecimal("3.50"))
+            .quantityOnHand(10)
+            .build());
+        assertEquals(beer.getId(), beerNameIndex.searchByName("zwickelbrau", 0, 10).ids().getFirst());
+
+        beer.setBeerName("Kellerbier Spezial");
+        beer = beerRepository.save(beer);
+        assertAll(
+            () -> assertTrue(beerNameIndex.searchByName("zwickel", 0, 10).ids().isEmpty()),
+            () -> assertEquals(1, beerNameIndex.searchByName("keller spez", 0, 10).total())
+        );
+
+        beerRepository.delete(beer);
+        assertTrue(beerNameIndex.searchByName("kellerbier", 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    void testSearchStopsAtMaxCandidates() {
+        BeerSearchProperties properties = new BeerSearchProperties();
+        properties.setMaxCandidates(3);
+        BeerNameIndex index = new BeerNameIndex(beerRepository, null, properties, null);
+        IntStream.range(0, 5).forEach(i -> index.onBeerChanged(BeerChangedEvent.created(new BeerState(UUID.randomUUID(), 0L,
+            "Hopfen Nr " + i, BeerStyleEnum.IPA, "12345" + i, 1, BigDecimal.ONE, null))));
+
+        assertAll(
+            () -> assertEquals(3, index.searchByName("hop", 0, 10).total()),
+            () -> assertEquals(3, index.searchByName("hop", 0, 10).ids().size()),
+            () -> assertEquals(1, index.searchByName("hopfen 4", 0, 10).total()),
+            () -> assertTrue(index.searchByName("hop", 3, 10).ids().isEmpty()),
+            () -> assertEquals(3, index.searchByUpcPrefix("12345", 0, 10).total()),
+            () -> assertEquals(1, index.searchByUpcPrefix("12345", 2, 10).ids().size())
+        );
+    }
+}
@@ -0,0 +1,170 @@
+package ch.dboeckli.spring.datarest.controller;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.paging.BeerScrollOrder;
+import ch.dboeckli.spring.datarest.paging.BeerScrollToken;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Slf4j
+class BeerScrollControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testScrollThroughCatalog() throws Exception {
+        MvcResult firstWindow = mockMvc.perform(get("/api/v4/beer/search/scroll")
+                .param("size", "20")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(20)))
+            .andExpect(jsonPath("$._embedded.beers[0].beerName", is("Adjunct Trail")))
+            .andExpect(jsonPath("$._links.next.href").isString())
+            .andReturn();
+
+        JsonNode firstJson = objectMapper.readTree(firstWindow.getResponse().getContentAsString());
+        String nextHref = firstJson.get("_links").get("next").get("href").asString();
+        String cursor = UriComponentsBuilder.fromUriString(nextHref).build().getQueryParams().getFirst("cursor");
+        log.info("### Next cursor: {}", cursor);
+
+        mockMvc.perform(get("/api/v4/beer/search/scroll")
+                .param("size", "20")
+                .param("cursor", cursor)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(10)))
+            .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void testScrollPastBeersWithoutName() throws Exception {
+        long catalogSize = beerRepository.count();
+        List<Beer> unnamed = List.of(unnamedBeer("9990000000024"), unnamedBeer("9990000000031"));
+        try {
+            List<JsonNode> beers = new ArrayList<>();
+            String cursor = null;
+            do {
+                MockHttpServletRequestBuilder request = get("/api/v4/beer/search/scroll")
+                    .param("size", "2")
+                    .accept(MediaType.APPLICATION_JSON);
+                if (cursor != null) {
+                    request.param("cursor", cursor);
+                }
+                JsonNode window = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+                window.get("_embedded").get("beers").forEach(beers::add);
+                JsonNode next = window.get("_links").get("next");
+                cursor = next == null ? null
+                    : UriComponentsBuilder.fromUriString(next.get("href").asString()).build().getQueryParams().getFirst("cursor");
+            } while (cursor != null);
+
+            assertAll(
+                () -> assertEquals(catalogSize + 2, beers.size()),
+                () -> assertEquals(beers.size(), new HashSet<>(beers.stream().map(beer -> beer.get("_links").get("self").get("href").asString()).toList()).size()),
+                () -> assertFalse(beers.get(0).hasNonNull("beerName")),
+                () -> assertFalse(beers.get(1).hasNonNull("beerName")),
+                () -> assertEquals("Adjunct Trail", beers.get(2).get("beerName").asString())
+            );
+        } finally {
+            beerRepository.deleteAll(unnamed);
+        }
+    }
+
+    private Beer unnamedBeer(String upc) {
+        return beerRepository.save(Beer.builder()
+            .beerStyle(BeerStyleEnum.ALE)
+            .upc(upc)
+            .quantityOnHand(1)
+            .price(new BigDecimal("1.00"))
+            .build());
+    }
+
+    @Test
+    void testScrollWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/scroll")
+                .param("cursor", "not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testScrollLinkIsAdvertised() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._links.scroll.href").isString());
+    }
+
+    @Test
+    void testScrollByCreatedDate() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/scroll")
+                .param("order", "CREATED")
+                .param("size", "30")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(30)))
+            .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void testScrollRejectsEmptyWindows() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/search/scroll")
+                .param("size", "0")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCursorKeepsSeparatorsAndNullNames() {
+        UUID id = UUID.randomUUID();
+        KeysetScrollPosition withSeparator = ScrollPosition.forward(Map.of("beerName", "Black | White", "id", id));
+        Map<String, Object> nullName = new HashMap<>();
+        nullName.put("beerName", null);
+        nullName.put("id", id);
+
+        assertAll(
+            () -> assertEquals(withSeparator.getKeys(),
+                BeerScrollToken.decode(BeerScrollOrder.NAME, BeerScrollToken.encode(BeerScrollOrder.NAME, withSeparator)).getKeys()),
+            () -> assertNull(BeerScrollToken.decode(BeerScrollOrder.NAME,
+                BeerScrollToken.encode(BeerScrollOrder.NAME, ScrollPosition.forward(nullName))).getKeys().get("beerName"))
+        );
+    }
+}
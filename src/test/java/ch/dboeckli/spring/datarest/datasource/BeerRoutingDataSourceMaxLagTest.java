@@ -0,0 +1,61 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Same stand-in databases as {@link BeerRoutingDataSourceTest}, with a {@code max-lag} long enough to cover the
+ * requests after a change. The response cache is off, so the pages and their totals come from the queries of the
+ * request itself.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:beer-primary-lag;DB_CLOSE_DELAY=-1",
+    "beer.datasource.replica.enabled=true",
+    "beer.datasource.replica.url=jdbc:h2:mem:beer-replica-lag;DB_CLOSE_DELAY=-1",
+    "beer.datasource.replica.max-lag=1m",
+    "beer.response-cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(BeerRoutingDataSourceTest.ReplicaSchema.class)
+@DirtiesContext
+class BeerRoutingDataSourceMaxLagTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BeerRoutingDataSource routingDataSource;
+
+    @Test
+    void testCollectionReadsPageAndTotalFromThePrimaryWithinMaxLag() throws Exception {
+        long beers = new TransactionTemplate(transactionManager)
+            .execute(_ -> jdbcTemplate.queryForObject("select count(*) from beer", Long.class));
+
+        routingDataSource.changed();
+
+        mockMvc.perform(get("/api/v4/beer").param("size", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.beers", hasSize(5)))
+            .andExpect(jsonPath("$.page.totalElements", is((int) beers)));
+    }
+}
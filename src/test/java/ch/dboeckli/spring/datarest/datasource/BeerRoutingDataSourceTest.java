@@ -0,0 +1,172 @@
+package ch.dboeckli.spring.datarest.datasource;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two H2 databases stand in for primary and replica. The replica only gets the schema, so every read that reaches it
+ * finds no beers.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:beer-primary;DB_CLOSE_DELAY=-1",
+    "beer.datasource.replica.enabled=true",
+    "beer.datasource.replica.url=jdbc:h2:mem:beer-replica;DB_CLOSE_DELAY=-1",
+    "beer.datasource.replica.max-lag=0s"
+})
+@AutoConfigureMockMvc
+@Import(BeerRoutingDataSourceTest.ReplicaSchema.class)
+@DirtiesContext
+class BeerRoutingDataSourceTest {
+
+    private static final String COOKIE = "BEER_PRIMARY";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerReadYourWritesFilter beerReadYourWritesFilter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testReadOnlyTransactionsUseTheReplica() {
+        assertAll(
+            () -> assertTrue(countBeers(false) > 0),
+            () -> assertEquals(0, countBeers(true)),
+            () -> assertEquals(0, beerRepository.count())
+        );
+    }
+
+    @Test
+    void testWriteSetsTheReadYourWritesCookie() throws Exception {
+        Beer beer = transaction(false).execute(_ -> beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst());
+
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", beer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.SET_COOKIE, startsWith(COOKIE + "=")));
+    }
+
+    @Test
+    void testCookiePinsReadsToThePrimaryWithinTheWindow() throws Exception {
+        assertAll(
+            () -> assertTrue(countBeersInRequest(new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + 60_000))) > 0),
+            () -> assertEquals(0, countBeersInRequest(new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() - 1)))),
+            () -> assertEquals(0, countBeersInRequest(new Cookie(COOKIE, "forged")))
+        );
+    }
+
+    @Test
+    void testBeerChangePinsCacheRefillsToThePrimaryForMaxLag() {
+        BeerRoutingDataSource routingDataSource = new BeerRoutingDataSource(jdbcTemplate.getDataSource(), jdbcTemplate.getDataSource(), Duration.ofMinutes(1));
+        assertEquals(BeerRoutingDataSource.Target.REPLICA, refillTarget(routingDataSource));
+
+        routingDataSource.changed();
+
+        assertAll(
+            () -> assertEquals(BeerRoutingDataSource.Target.PRIMARY, refillTarget(routingDataSource)),
+            () -> assertEquals(BeerRoutingDataSource.Target.REPLICA, transaction(true).execute(_ -> routingDataSource.target()))
+        );
+    }
+
+    private BeerRoutingDataSource.Target refillTarget(BeerRoutingDataSource routingDataSource) {
+        try (var _ = BeerRoutingDataSource.refill()) {
+            return transaction(true).execute(_ -> routingDataSource.target());
+        }
+    }
+
+    @Test
+    void testPoolsAreMeteredSeparately() {
+        countBeers(false);
+        countBeers(true);
+
+        assertAll(
+            () -> assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", BeerRoutingDataSourceConfiguration.PRIMARY_POOL).gauge()),
+            () -> assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", BeerRoutingDataSourceConfiguration.REPLICA_POOL).gauge())
+        );
+    }
+
+    private long countBeersInRequest(Cookie cookie) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v4/beer");
+        request.setCookies(cookie);
+        long[] count = new long[1];
+        beerReadYourWritesFilter.doFilter(request, new MockHttpServletResponse(), (_, _) -> count[0] = countBeers(true));
+        return count[0];
+    }
+
+    private long countBeers(boolean readOnly) {
+        return transaction(readOnly).execute(_ -> jdbcTemplate.queryForObject("select count(*) from beer", Long.class));
+    }
+
+    private TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate;
+    }
+
+    /**
+     * The stand-in replica does not replicate, it only gets the schema. Declaring a {@link SpringLiquibase} turns the
+     * auto-configured one off, so the primary is migrated here as well.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class ReplicaSchema {
+
+        @Bean
+        SpringLiquibase liquibase(DataSource dataSource) {
+            return springLiquibase(dataSource);
+        }
+
+        @Bean
+        SpringLiquibase replicaLiquibase(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+            return springLiquibase(replicaDataSource);
+        }
+
+        private static SpringLiquibase springLiquibase(DataSource dataSource) {
+            SpringLiquibase springLiquibase = new SpringLiquibase();
+            springLiquibase.setDataSource(dataSource);
+            springLiquibase.setChangeLog("classpath:db/changelog/db.changelog-master.xml");
+            return springLiquibase;
+        }
+    }
+}
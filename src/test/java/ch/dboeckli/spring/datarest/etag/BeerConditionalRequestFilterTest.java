@@ -0,0 +1,113 @@
+package ch.dboeckli.spring.datarest.etag;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerConditionalRequestFilterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Test
+    void testItemNotModified() throws Exception {
+        Beer beer = firstBeer();
+        String eTag = "\"" + beer.getVersion() + "\"";
+
+        mockMvc.perform(get("/api/v4/beer/{id}", beer.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        mockMvc.perform(get("/api/v4/beer/{id}", beer.getId()).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void testItemModified() throws Exception {
+        Beer beer = firstBeer();
+
+        mockMvc.perform(get("/api/v4/beer/{id}", beer.getId()).accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + (beer.getVersion() + 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.beerName").value(beer.getBeerName()));
+    }
+
+    @Test
+    void testWebPageNotModified() throws Exception {
+        Beer beer = firstBeer();
+        String eTag = "\"web-" + beer.getVersion() + "\"";
+
+        mockMvc.perform(get("/web/beer/{id}", beer.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        mockMvc.perform(get("/web/beer/{id}", beer.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void testCollectionNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(eTag.startsWith("W/\""));
+
+        mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/v4/beer").param("page", "1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v4/beer/search/findAllByBeerStyle").param("beerStyle", "ALE")
+                .accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testCollectionModifiedAfterChange() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Beer beer = firstBeer();
+        beer.setQuantityOnHand(beer.getQuantityOnHand() == null ? 1 : beer.getQuantityOnHand() + 1);
+        beerRepository.save(beer);
+
+        mockMvc.perform(get("/api/v4/beer").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    void testMatches() {
+        assertTrue(BeerConditionalRequestFilter.matches("\"1\"", "\"1\""));
+        assertTrue(BeerConditionalRequestFilter.matches("\"0\", W/\"1\"", "\"1\""));
+        assertTrue(BeerConditionalRequestFilter.matches("*", "\"1\""));
+        assertFalse(BeerConditionalRequestFilter.matches("\"2\"", "\"1\""));
+        assertFalse(BeerConditionalRequestFilter.matches(null, "\"1\""));
+    }
+
+    private Beer firstBeer() {
+        return beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst();
+    }
+}
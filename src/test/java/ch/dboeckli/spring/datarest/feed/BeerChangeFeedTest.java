@@ -0,0 +1,101 @@
+package ch.dboeckli.spring.datarest.feed;
+
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerChangeFeedTest {
+
+    BeerChangeFeed beerChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        BeerChangeFeedProperties properties = new BeerChangeFeedProperties();
+        properties.setCapacity(4);
+        beerChangeFeed = new BeerChangeFeed(properties);
+    }
+
+    @Test
+    void testReadsFromSequence() throws InterruptedException {
+        UUID first = change();
+        UUID second = change();
+
+        BeerChangeFeed.Batch all = beerChangeFeed.read(1, 10, Duration.ZERO);
+        BeerChangeFeed.Batch rest = beerChangeFeed.read(2, 10, Duration.ZERO);
+
+        assertAll(
+            () -> assertFalse(all.gap()),
+            () -> assertEquals(2, all.entries().size()),
+            () -> assertEquals(first, all.entries().get(0).beerId()),
+            () -> assertEquals(1, all.entries().get(0).sequence()),
+            () -> assertEquals(second, rest.entries().getFirst().beerId()),
+            () -> assertEquals(3, beerChangeFeed.nextSequence())
+        );
+    }
+
+    @Test
+    void testWaitsForNextChange() throws InterruptedException {
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            change();
+        });
+
+        BeerChangeFeed.Batch batch = beerChangeFeed.read(1, 10, Duration.ofSeconds(5));
+
+        assertEquals(1, batch.entries().size());
+    }
+
+    @Test
+    void testEmptyAfterTimeout() throws InterruptedException {
+        BeerChangeFeed.Batch batch = beerChangeFeed.read(1, 10, Duration.ofMillis(10));
+
+        assertAll(
+            () -> assertFalse(batch.gap()),
+            () -> assertTrue(batch.entries().isEmpty())
+        );
+    }
+
+    @Test
+    void testGapWhenOverwrittenOrUnknown() throws InterruptedException {
+        for (int i = 0; i < 6; i++) {
+            change();
+        }
+
+        assertAll(
+            () -> assertTrue(beerChangeFeed.read(2, 10, Duration.ZERO).gap()),
+            () -> assertEquals(4, beerChangeFeed.read(3, 10, Duration.ZERO).entries().size()),
+            () -> assertTrue(beerChangeFeed.read(100, 10, Duration.ZERO).gap())
+        );
+    }
+
+    @Test
+    void testEventIds() {
+        String eventId = beerChangeFeed.eventId(7);
+        BeerChangeFeed other = new BeerChangeFeed(new BeerChangeFeedProperties());
+
+        assertAll(
+            () -> assertEquals(7, beerChangeFeed.sequenceOf(eventId)),
+            () -> assertEquals(-1, other.sequenceOf(eventId)),
+            () -> assertEquals(-1, beerChangeFeed.sequenceOf("7")),
+            () -> assertTrue(beerChangeFeed.read(0, 10, Duration.ZERO).gap())
+        );
+    }
+
+    private UUID change() {
+        UUID id = UUID.randomUUID();
+        beerChangeFeed.onBeerChanged(BeerChangedEvent.created(
+            new BeerState(id, 0L, "Feed Test", BeerStyleEnum.ALE, "1", 1, null, null)));
+        return id;
+    }
+}
@@ -0,0 +1,94 @@
+package ch.dboeckli.spring.datarest.guard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "beer.cost-guard.search.max-page-size=50",
+    "beer.cost-guard.collection.downgrade-threshold=40",
+    "beer.cost-guard.rate-limit.capacity=3",
+    "beer.cost-guard.rate-limit.refill-per-second=0.001",
+    "beer.cost-guard.rate-limit.client-header=X-Forwarded-For"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerCostGuardFilterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testLargePageSizeIsReduced() throws Exception {
+        double clampedBefore = count("search", "clamped");
+
+        mockMvc.perform(get("/api/v4/beer/search/findAllByBeerStyle")
+                .param("beerStyle", "IPA")
+                .param("size", "5000")
+                .header("X-Forwarded-For", "10.0.0.1")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.page.size", is(50)));
+
+        assertEquals(clampedBefore + 1, count("search", "clamped"));
+    }
+
+    @Test
+    void testLargeFirstPageIsRedirectedToScroll() throws Exception {
+        double downgradedBefore = count("collection", "downgraded");
+
+        mockMvc.perform(get("/api/v4/beer")
+                .param("size", "40")
+                .header("X-Forwarded-For", "10.0.0.2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isSeeOther())
+            .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/api/v4/beer/search/scroll?size=40&order=CREATED")));
+
+        assertEquals(downgradedBefore + 1, count("collection", "downgraded"));
+    }
+
+    @Test
+    void testDeepPagesAreRejectedWhenTheBucketIsEmpty() throws Exception {
+        double rejectedBefore = count("collection", "rejected");
+
+        mockMvc.perform(get("/api/v4/beer")
+                .param("page", "9")
+                .param("size", "20")
+                .header("X-Forwarded-For", "10.0.0.3, 10.0.0.254")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v4/beer")
+                .param("page", "9")
+                .param("size", "20")
+                .header("X-Forwarded-For", "10.0.0.3")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(get("/api/v4/beer")
+                .param("size", "20")
+                .header("X-Forwarded-For", "10.0.0.3")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+
+        assertEquals(rejectedBefore + 1, count("collection", "rejected"));
+    }
+
+    private double count(String endpoint, String action) {
+        return meterRegistry.counter(BeerCostGuardFilter.METER, "endpoint", endpoint, "action", action).count();
+    }
+}
@@ -0,0 +1,62 @@
+package ch.dboeckli.spring.datarest.guard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private BeerRateLimiter rateLimiter(int capacity, double refillPerSecond, int maxClients) {
+        BeerCostGuardProperties properties = new BeerCostGuardProperties();
+        properties.getRateLimit().setCapacity(capacity);
+        properties.getRateLimit().setRefillPerSecond(refillPerSecond);
+        properties.getRateLimit().setMaxClients(maxClients);
+        return new BeerRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testEmptyBucketIsRefilledOverTime() {
+        BeerRateLimiter rateLimiter = rateLimiter(10, 5, 100);
+
+        assertEquals(0, rateLimiter.tryAcquire("a", 6, 0));
+        assertEquals(0, rateLimiter.tryAcquire("a", 4, 0));
+        assertEquals(400, rateLimiter.tryAcquire("a", 2, 0));
+        assertEquals(0, rateLimiter.tryAcquire("a", 2, 2 * SECOND / 5));
+    }
+
+    @Test
+    void testClientsHaveTheirOwnBuckets() {
+        BeerRateLimiter rateLimiter = rateLimiter(10, 1, 100);
+
+        assertEquals(0, rateLimiter.tryAcquire("a", 10, 0));
+        assertTrue(rateLimiter.tryAcquire("a", 1, 0) > 0);
+        assertEquals(0, rateLimiter.tryAcquire("b", 10, 0));
+        assertEquals(2, rateLimiter.clients());
+    }
+
+    @Test
+    void testRequestsAboveCapacityCostTheCapacity() {
+        BeerRateLimiter rateLimiter = rateLimiter(10, 1, 100);
+
+        assertEquals(0, rateLimiter.tryAcquire("a", 50, 0));
+        assertEquals(10_000, rateLimiter.tryAcquire("a", 50, 0));
+        assertEquals(0, rateLimiter.tryAcquire("a", 50, 100 * SECOND));
+    }
+
+    @Test
+    void testLeastRecentlySeenClientsAreForgotten() {
+        BeerRateLimiter rateLimiter = rateLimiter(10, 1, 2);
+
+        assertEquals(0, rateLimiter.tryAcquire("a", 10, 0));
+        assertEquals(0, rateLimiter.tryAcquire("b", 10, 0));
+        assertEquals(0, rateLimiter.tryAcquire("c", 10, 0));
+
+        assertEquals(2, rateLimiter.clients());
+        assertEquals(0, rateLimiter.tryAcquire("a", 10, 0));
+    }
+}
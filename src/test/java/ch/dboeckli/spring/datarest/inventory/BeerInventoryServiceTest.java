@@ -0,0 +1,185 @@
+package ch.dboeckli.spring.datarest.inventory;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.lookup.BeerUpcIndex;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "beer.inventory.coalesce.enabled=true")
+@AutoConfigureMockMvc
+class BeerInventoryServiceTest {
+
+    private static final String UPC = "7300000000001";
+
+    @Autowired
+    BeerInventoryService beerInventoryService;
+
+    @Autowired
+    BeerInventoryCoalescer beerInventoryCoalescer;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerUpcIndex beerUpcIndex;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    Beer beer;
+
+    @BeforeEach
+    void createBeer() {
+        beer = beerRepository.save(Beer.builder()
+            .beerName("Inventory Pils")
+            .beerStyle(BeerStyleEnum.PILSNER)
+            .upc(UPC)
+            .price(new BigDecimal("2.90"))
+            .quantityOnHand(10)
+            .build());
+    }
+
+    @AfterEach
+    void deleteBeer() {
+        beerRepository.deleteById(beer.getId());
+    }
+
+    @Test
+    void testAdjust() {
+        BeerInventoryAdjustment added = beerInventoryService.adjust(beer.getId(), 5);
+        BeerInventoryAdjustment removed = beerInventoryService.adjust(beer.getId(), -3);
+
+        assertAll(
+            () -> assertEquals(BeerInventoryAdjustment.Outcome.APPLIED, added.outcome()),
+            () -> assertEquals(15, added.beer().quantityOnHand()),
+            () -> assertEquals(12, removed.beer().quantityOnHand()),
+            () -> assertEquals(beer.getVersion() + 2, removed.beer().version()),
+            () -> assertEquals(12, beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()),
+            () -> assertEquals(12, beerUpcIndex.lookup(UPC).quantityOnHand())
+        );
+    }
+
+    @Test
+    void testNeverNegative() {
+        BeerInventoryAdjustment adjustment = beerInventoryService.adjust(beer.getId(), -11);
+
+        assertAll(
+            () -> assertEquals(BeerInventoryAdjustment.Outcome.INSUFFICIENT_STOCK, adjustment.outcome()),
+            () -> assertEquals(10, beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand()),
+            () -> assertEquals(BeerInventoryAdjustment.Outcome.NOT_FOUND, beerInventoryService.adjust(UUID.randomUUID(), 1).outcome())
+        );
+    }
+
+    @Test
+    void testConcurrentSales() throws Exception {
+        List<Future<BeerInventoryAdjustment>> sales = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 15; i++) {
+                sales.add(executor.submit(() -> beerInventoryService.adjust(beer.getId(), -1)));
+            }
+        }
+        long applied = 0;
+        for (Future<BeerInventoryAdjustment> sale : sales) {
+            if (sale.get().outcome() == BeerInventoryAdjustment.Outcome.APPLIED) {
+                applied++;
+            }
+        }
+
+        assertEquals(10, applied);
+        assertEquals(0, beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand());
+    }
+
+    @Test
+    void testCoalesce() {
+        beerInventoryCoalescer.flush();
+        for (int i = 0; i < 100; i++) {
+            beerInventoryCoalescer.add(beer.getId(), i % 2 == 0 ? 2 : -1);
+        }
+
+        beerInventoryCoalescer.flush();
+
+        assertEquals(60, beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand());
+    }
+
+    @Test
+    void testCoalescePrunesAndDrops() {
+        beerInventoryCoalescer.flush();
+
+        assertFalse(beerInventoryCoalescer.add(UUID.randomUUID(), 1));
+        assertTrue(beerInventoryCoalescer.add(beer.getId(), 3));
+        assertTrue(beerInventoryCoalescer.add(beer.getId(), -3));
+        assertEquals(0, beerInventoryCoalescer.flush());
+
+        beerInventoryCoalescer.add(beer.getId(), -11);
+        assertEquals(0, beerInventoryCoalescer.flush());
+        assertEquals(10, beerRepository.findById(beer.getId()).orElseThrow().getQuantityOnHand());
+    }
+
+    @Test
+    void testAdjustEvictsOnlyTheBeer() {
+        Beer other = beerRepository.findAll(PageRequest.of(0, 2)).stream().filter(b -> !b.getId().equals(beer.getId())).findFirst().orElseThrow();
+        beerRepository.findById(beer.getId());
+        beerRepository.findById(other.getId());
+
+        beerInventoryService.adjust(beer.getId(), 1);
+
+        assertAll(
+            () -> assertFalse(entityManagerFactory.getCache().contains(Beer.class, beer.getId())),
+            () -> assertTrue(entityManagerFactory.getCache().contains(Beer.class, other.getId()))
+        );
+    }
+
+    @Test
+    void testEndpoint() throws Exception {
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", beer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": -4}"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andExpect(jsonPath("$.quantityOnHand", is(6)));
+
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", beer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": -7}"))
+            .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", beer.getId())
+                .param("coalesce", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+            .andExpect(status().isAccepted());
+        beerInventoryCoalescer.flush();
+
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", UUID.randomUUID())
+                .param("coalesce", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+            .andExpect(status().isNotFound());
+    }
+}
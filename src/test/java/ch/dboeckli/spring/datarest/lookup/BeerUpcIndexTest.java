@@ -0,0 +1,105 @@
+package ch.dboeckli.spring.datarest.lookup;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerUpcIndexTest {
+
+    @Autowired
+    BeerUpcIndex beerUpcIndex;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void testKey() {
+        assertAll(
+            () -> assertEquals(631234200036L, BeerUpcIndex.key(BeerLoader.BEER_1_UPC)),
+            () -> assertEquals(-1, BeerUpcIndex.key("631234200036")),
+            () -> assertEquals(-1, BeerUpcIndex.key("063123420003X")),
+            () -> assertEquals(-1, BeerUpcIndex.key(null))
+        );
+    }
+
+    @Test
+    void testLookupMatchesDatabase() {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_1_UPC);
+
+        BeerUpcEntry entry = beerUpcIndex.lookup(BeerLoader.BEER_1_UPC);
+
+        assertAll(
+            () -> assertTrue(beerUpcIndex.covers(BeerLoader.BEER_1_UPC)),
+            () -> assertEquals(beer.getId(), entry.id()),
+            () -> assertEquals(beer.getVersion(), entry.version()),
+            () -> assertEquals(0, beer.getPrice().compareTo(entry.price())),
+            () -> assertEquals(beer.getQuantityOnHand(), entry.quantityOnHand()),
+            () -> assertNull(beerUpcIndex.lookup("0000000000000"))
+        );
+    }
+
+    @Test
+    void testIndexFollowsChanges() {
+        Beer beer = beerRepository.save(Beer.builder()
+            .beerName("Upc Index Lager")
+            .beerStyle(BeerStyleEnum.LAGER)
+            .upc("7200000000001")
+            .price(new BigDecimal("4.20"))
+            .quantityOnHand(5)
+            .build());
+        assertEquals(beer.getId(), beerUpcIndex.lookup("7200000000001").id());
+
+        beer.setQuantityOnHand(7);
+        beer.setPrice(new BigDecimal("4.90"));
+        beer = beerRepository.save(beer);
+        BeerUpcEntry updated = beerUpcIndex.lookup("7200000000001");
+        assertAll(
+            () -> assertEquals(7, updated.quantityOnHand()),
+            () -> assertEquals(new BigDecimal("4.90"), updated.price())
+        );
+
+        beer.setUpc("7200000000002");
+        beer = beerRepository.save(beer);
+        assertAll(
+            () -> assertNull(beerUpcIndex.lookup("7200000000001")),
+            () -> assertNotNull(beerUpcIndex.lookup("7200000000002"))
+        );
+
+        beerRepository.delete(beer);
+        assertNull(beerUpcIndex.lookup("7200000000002"));
+    }
+
+    @Test
+    void testLookupEndpoint() throws Exception {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_2_UPC);
+
+        mockMvc.perform(get("/api/v4/beer/upc/{upc}", BeerLoader.BEER_2_UPC)
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id", is(beer.getId().toString())))
+            .andExpect(jsonPath("$.quantityOnHand", is(beer.getQuantityOnHand())));
+
+        mockMvc.perform(get("/api/v4/beer/upc/{upc}", "0000000000000")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,78 @@
+package ch.dboeckli.spring.datarest.metrics;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BeerRepositoryMetricsInterceptorTest {
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testTimesSearchResource() {
+        Timer timer = meterRegistry.find(BeerRepositoryMetricsInterceptor.INVOCATIONS)
+            .tags("method", "findByUpc", "resource", "/beer/search/findByUpc", "outcome", "success")
+            .timer();
+        long before = timer == null ? 0 : timer.count();
+
+        beerRepository.findByUpc(BeerLoader.BEER_1_UPC);
+
+        Timer after = meterRegistry.get(BeerRepositoryMetricsInterceptor.INVOCATIONS)
+            .tags("method", "findByUpc", "resource", "/beer/search/findByUpc", "outcome", "success")
+            .timer();
+        assertEquals(before + 1, after.count());
+    }
+
+    @Test
+    void testRecordsRowsAndStatements() {
+        beerRepository.findSliceByBeerStyle(BeerStyleEnum.ALE, Pageable.ofSize(2));
+
+        DistributionSummary rows = meterRegistry.get(BeerRepositoryMetricsInterceptor.ROWS)
+            .tags("method", "findSliceByBeerStyle", "resource", "/beer/search/sliceByBeerStyle")
+            .summary();
+        DistributionSummary statements = meterRegistry.get(BeerRepositoryMetricsInterceptor.STATEMENTS)
+            .tags("method", "findSliceByBeerStyle")
+            .summary();
+        assertAll(
+            () -> assertTrue(rows.count() > 0),
+            () -> assertTrue(rows.max() <= 2),
+            () -> assertTrue(statements.count() > 0)
+        );
+    }
+
+    @Test
+    void testResource() throws NoSuchMethodException {
+        assertAll(
+            () -> assertEquals("crud", BeerRepositoryMetricsInterceptor.resource(BeerRepository.class.getMethod("findById", Object.class))),
+            () -> assertEquals("none", BeerRepositoryMetricsInterceptor.resource(BeerRepository.class.getMethod("findVersionById", UUID.class))),
+            () -> assertEquals("/beer/search/slice", BeerRepositoryMetricsInterceptor.resource(BeerRepository.class.getMethod("findSliceBy", Pageable.class))),
+            () -> assertEquals("/beer/search/findByUpc", BeerRepositoryMetricsInterceptor.resource(BeerRepository.class.getMethod("findByUpc", String.class)))
+        );
+    }
+
+    @Test
+    void testRows() {
+        assertAll(
+            () -> assertEquals(3, BeerRepositoryMetricsInterceptor.rows(List.of(1, 2, 3))),
+            () -> assertEquals(0, BeerRepositoryMetricsInterceptor.rows(null)),
+            () -> assertEquals(-1, BeerRepositoryMetricsInterceptor.rows(42L))
+        );
+    }
+}
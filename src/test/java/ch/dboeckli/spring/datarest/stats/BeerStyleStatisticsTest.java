@@ -0,0 +1,116 @@
+package ch.dboeckli.spring.datarest.stats;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.event.BeerChangedEvent;
+import ch.dboeckli.spring.datarest.event.BeerState;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerStyleStatisticsTest {
+
+    @Autowired
+    BeerStyleStatistics beerStyleStatistics;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void testMatchesCatalog() {
+        assertTrue(beerStyleStatistics.reconcile());
+
+        for (BeerStyleStats stats : beerStyleStatistics.snapshot()) {
+            List<Beer> beers = beerRepository.findAll().stream().filter(beer -> beer.getBeerStyle() == stats.beerStyle()).toList();
+            List<BigDecimal> prices = beers.stream().map(Beer::getPrice).filter(Objects::nonNull).toList();
+            assertAll(stats.beerStyle().name(),
+                () -> assertEquals(beers.size(), stats.count()),
+                () -> assertEquals(beers.stream().mapToLong(beer -> beer.getQuantityOnHand() == null ? 0 : beer.getQuantityOnHand()).sum(), stats.quantityOnHand()),
+                () -> assertEquals(prices.stream().min(Comparator.naturalOrder()).orElse(null), stats.minPrice()),
+                () -> assertEquals(prices.stream().max(Comparator.naturalOrder()).orElse(null), stats.maxPrice())
+            );
+        }
+    }
+
+    @Test
+    void testFollowsChanges() {
+        BeerStyleStats before = stats(BeerStyleEnum.GOSE);
+
+        Beer beer = beerRepository.save(Beer.builder()
+            .beerName("Statistics Test")
+            .beerStyle(BeerStyleEnum.GOSE)
+            .upc("9990000000017")
+            .quantityOnHand(7)
+            .price(new BigDecimal("999.99"))
+            .build());
+        BeerStyleStats created = stats(BeerStyleEnum.GOSE);
+
+        beer.setBeerStyle(BeerStyleEnum.PORTER);
+        beer = beerRepository.save(beer);
+        BeerStyleStats moved = stats(BeerStyleEnum.GOSE);
+
+        beerRepository.delete(beer);
+        BeerStyleStats deleted = stats(BeerStyleEnum.PORTER);
+
+        assertAll(
+            () -> assertEquals(before.count() + 1, created.count()),
+            () -> assertEquals(before.quantityOnHand() + 7, created.quantityOnHand()),
+            () -> assertEquals(0, new BigDecimal("999.99").compareTo(created.maxPrice())),
+            () -> assertEquals(before, moved),
+            () -> assertNotEquals(new BigDecimal("999.99"), deleted.maxPrice()),
+            () -> assertTrue(beerStyleStatistics.reconcile())
+        );
+    }
+
+    @Test
+    void testChangesWithoutPreviousStateKeepTheStatistics() {
+        assertTrue(beerStyleStatistics.reconcile());
+        List<BeerStyleStats> before = beerStyleStatistics.snapshot();
+        Beer beer = beerRepository.findAll().getFirst();
+        BeerState state = BeerState.of(beer);
+
+        for (int i = 0; i < 100; i++) {
+            beerStyleStatistics.onBeerChanged(BeerChangedEvent.updated(null, state));
+        }
+
+        assertAll(
+            () -> assertEquals(before, beerStyleStatistics.snapshot()),
+            () -> assertTrue(beerStyleStatistics.reconcile()),
+            () -> assertEquals(before, beerStyleStatistics.snapshot())
+        );
+    }
+
+    @Test
+    void testStatsEndpoint() throws Exception {
+        mockMvc.perform(get("/api/v4/beer/stats").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(BeerStyleEnum.values().length)))
+            .andExpect(jsonPath("$[0].beerStyle").value(BeerStyleEnum.values()[0].name()));
+    }
+
+    private BeerStyleStats stats(BeerStyleEnum style) {
+        return beerStyleStatistics.snapshot().stream().filter(stats -> stats.beerStyle() == style).findFirst().orElseThrow();
+    }
+}
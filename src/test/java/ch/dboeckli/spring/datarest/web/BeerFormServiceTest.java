@@ -0,0 +1,87 @@
+package ch.dboeckli.spring.datarest.web;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BeerFormServiceTest {
+
+    @Autowired
+    BeerFormService beerFormService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testStatementsPerSubmission() {
+        double createStatements = statements("create");
+        Beer created = beerFormService.create(form("Form Beer", "5000000000001"));
+        assertEquals(1, statements("create") - createStatements);
+
+        double updateStatements = statements("update");
+        Beer edited = form("Form Beer Edited", "5000000000001");
+        assertEquals(BeerFormService.Outcome.APPLIED, beerFormService.update(created.getId(), created.getVersion(), edited));
+        // current state, update
+        assertEquals(2, statements("update") - updateStatements);
+
+        Beer updated = beerRepository.findById(created.getId()).orElseThrow();
+        assertAll(
+            () -> assertEquals("Form Beer Edited", updated.getBeerName()),
+            () -> assertEquals(created.getVersion() + 1, updated.getVersion())
+        );
+
+        double deleteStatements = statements("delete");
+        assertEquals(BeerFormService.Outcome.APPLIED, beerFormService.delete(created.getId()));
+        assertEquals(2, statements("delete") - deleteStatements);
+        assertFalse(beerRepository.existsById(created.getId()));
+    }
+
+    @Test
+    void testStaleVersionConflicts() {
+        Beer created = beerFormService.create(form("Stale Form Beer", "5000000000002"));
+        assertEquals(BeerFormService.Outcome.APPLIED, beerFormService.update(created.getId(), created.getVersion(), form("First Edit", "5000000000002")));
+
+        assertEquals(BeerFormService.Outcome.CONFLICT, beerFormService.update(created.getId(), created.getVersion(), form("Second Edit", "5000000000002")));
+        assertEquals("First Edit", beerRepository.findById(created.getId()).orElseThrow().getBeerName());
+
+        beerFormService.delete(created.getId());
+    }
+
+    @Test
+    void testMissingBeer() {
+        UUID missing = UUID.randomUUID();
+        assertAll(
+            () -> assertEquals(BeerFormService.Outcome.NOT_FOUND, beerFormService.update(missing, 0, form("Missing", "5000000000003"))),
+            () -> assertEquals(BeerFormService.Outcome.NOT_FOUND, beerFormService.delete(missing))
+        );
+    }
+
+    private double statements(String operation) {
+        DistributionSummary summary = meterRegistry.find(BeerFormService.STATEMENTS).tag("operation", operation).summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private static Beer form(String beerName, String upc) {
+        return Beer.builder()
+            .beerName(beerName)
+            .beerStyle(BeerStyleEnum.PILSNER)
+            .upc(upc)
+            .quantityOnHand(12)
+            .price(BigDecimal.valueOf(4.5))
+            .build();
+    }
+}
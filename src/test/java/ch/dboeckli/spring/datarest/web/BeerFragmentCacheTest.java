@@ -0,0 +1,121 @@
+package ch.dboeckli.spring.datarest.web;
+
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "beer.web.streaming.threshold=20",
+    "beer.web.streaming.chunk-size=4"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerFragmentCacheTest {
+
+    private static final Pattern ROW = Pattern.compile("<tr id=\"beer-");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerFragmentCache beerFragmentCache;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        beerFragmentCache.invalidate();
+    }
+
+    @Test
+    void testSecondPageIsRenderedFromCachedFragments() throws Exception {
+        double hitsBefore = hits();
+
+        String first = mockMvc.perform(get("/web/beers").param("size", "5"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String second = mockMvc.perform(get("/web/beers").param("size", "5"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("name=\"_csrf\"")))
+            .andReturn().getResponse().getContentAsString();
+
+        assertAll(
+            () -> assertEquals(hitsBefore + 1, hits()),
+            () -> assertEquals(1, beerFragmentCache.size()),
+            () -> assertEquals(5, ROW.matcher(second).results().count()),
+            () -> assertEquals(rowsOf(first), rowsOf(second))
+        );
+    }
+
+    @Test
+    void testBeerChangeDropsFragments() throws Exception {
+        mockMvc.perform(get("/web/beers").param("size", "5")).andExpect(status().isOk());
+        assertEquals(1, beerFragmentCache.size());
+
+        Beer beer = beerRepository.findAll(PageRequest.of(0, 1)).getContent().getFirst();
+        beer.setPrice(beer.getPrice().add(BigDecimal.ONE));
+        beerRepository.save(beer);
+
+        assertEquals(0, beerFragmentCache.size());
+    }
+
+    @Test
+    void testLargePageIsStreamedInChunks() throws Exception {
+        String page = mockMvc.perform(get("/web/beers").param("size", "25"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("id=\"totalItems\"")))
+            .andExpect(content().string(containsString("</html>")))
+            .andReturn().getResponse().getContentAsString();
+
+        long expectedRows = Math.min(25, beerRepository.count());
+        assertAll(
+            () -> assertEquals(expectedRows, ROW.matcher(page).results().count()),
+            () -> assertEquals((expectedRows + 3) / 4, Pattern.compile("<tbody>").matcher(page).results().count()),
+            () -> assertFalse(page.contains(BeerListStreamer.ROWS_MARKER)),
+            () -> assertEquals(0, beerFragmentCache.size())
+        );
+    }
+
+    @Test
+    void testStreamedPagesTakeTheTotalFromTheCountCache() throws Exception {
+        mockMvc.perform(get("/web/beers").param("size", "25")).andExpect(status().isOk());
+        double countHitsBefore = countHits();
+
+        mockMvc.perform(get("/web/beers").param("size", "25").param("page", "1")).andExpect(status().isOk());
+
+        assertEquals(countHitsBefore + 1, countHits());
+    }
+
+    private double countHits() {
+        return meterRegistry.get("beer.count.cache").tag("result", "hit").counter().count();
+    }
+
+    private double hits() {
+        return meterRegistry.get("beer.web.fragment.cache").tag("result", "hit").counter().count();
+    }
+
+    private static String rowsOf(String page) {
+        return page.substring(page.indexOf("<tbody>"), page.lastIndexOf("</tbody>"));
+    }
+}
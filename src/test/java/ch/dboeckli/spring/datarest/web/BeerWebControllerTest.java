@@ -2,7 +2,9 @@ package ch.dboeckli.spring.datarest.web;
 
 import ch.dboeckli.spring.datarest.entity.Beer;
 import ch.dboeckli.spring.datarest.entity.BeerStyleEnum;
+import ch.dboeckli.spring.datarest.projection.BeerSummary;
 import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import jakarta.servlet.ServletContext;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -12,11 +14,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
 import org.springframework.validation.MapBindingResult;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -35,19 +40,22 @@ class BeerWebControllerTest {
     @Autowired
     BeerRepository beerRepository;
 
+    @Autowired
+    ServletContext servletContext;
+
     @Test
     @Order(0)
-    void testListBeers() {
+    void testListBeers() throws IOException {
         Model model = new ExtendedModelMap();
 
-        String viewName = controller.listBeers(model, 0, 25);
+        String viewName = listBeers(model, 0, 25, null);
         // Log all attributes in the model
         log.info("### Model attributes:");
         model.asMap().forEach((key, value) -> log.info(key + ": " + value));
 
         assertAll(
             () -> assertEquals("beers", viewName),
-            () -> assertEquals(25, ((List<Beer>) model.getAttribute("beers")).size()),
+            () -> assertEquals(25, ((List<BeerSummary>) model.getAttribute("beers")).size()),
             () -> assertEquals(2, model.getAttribute("totalPages")),
             () -> assertEquals(0, model.getAttribute("currentPage")),
             () -> assertEquals(30L, model.getAttribute("totalItems")),
@@ -59,18 +67,19 @@ class BeerWebControllerTest {
 
     @Test
     @Order(1)
-    void testGetBeer() {
+    void testGetBeer() throws IOException {
         // First, get a list of beers to obtain a valid ID
         Model listModel = new ExtendedModelMap();
-        controller.listBeers(listModel, 0, 25);
-        List<Beer> beers = (List<Beer>) listModel.getAttribute("beers");
+        listBeers(listModel, 0, 25, null);
+        List<BeerSummary> beers = (List<BeerSummary>) listModel.getAttribute("beers");
 
         // Get the ID of the first beer
         UUID beerId = beers.getFirst().getId();
 
         // Now test the getBeer method
         Model model = new ExtendedModelMap();
-        String viewName = controller.getBeer(beerId, model);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String viewName = controller.getBeer(beerId, model, response);
 
         // Log all attributes in the model
         log.info("### Model attributes for getBeer:");
@@ -80,24 +89,25 @@ class BeerWebControllerTest {
             () -> assertEquals("beer", viewName),
             () -> assertNotNull(model.getAttribute("beer")),
             () -> assertInstanceOf(Beer.class, model.getAttribute("beer")),
-            () -> assertEquals(beerId, ((Beer) model.getAttribute("beer")).getId())
+            () -> assertEquals(beerId, ((Beer) model.getAttribute("beer")).getId()),
+            () -> assertEquals("\"web-" + ((Beer) model.getAttribute("beer")).getVersion() + "\"", response.getHeader("ETag"))
         );
     }
 
     @Test
     @Order(2)
-    void testEditBeer() {
+    void testEditBeer() throws IOException {
         // First, get a list of beers to obtain a valid ID
         Model listModel = new ExtendedModelMap();
-        controller.listBeers(listModel, 0, 25);
-        List<Beer> beers = (List<Beer>) listModel.getAttribute("beers");
+        listBeers(listModel, 0, 25, null);
+        List<BeerSummary> beers = (List<BeerSummary>) listModel.getAttribute("beers");
 
         // Get the ID of the first beer
         UUID beerId = beers.getFirst().getId();
 
         // Get the current beer details
         Model currentModel = new ExtendedModelMap();
-        controller.getBeer(beerId, currentModel);
+        controller.getBeer(beerId, currentModel, new MockHttpServletResponse());
         Beer currentBeer = (Beer) currentModel.getAttribute("beer");
         String originalBeerName = currentBeer.getBeerName();
 
@@ -157,13 +167,42 @@ class BeerWebControllerTest {
         assertEquals(1, beers.getTotalElements());
     }
 
+    @Test
+    @Order(4)
+    void testListBeersKeyset() throws IOException {
+        Model firstModel = new ExtendedModelMap();
+        String viewName = listBeers(firstModel, 0, 25, "");
+        List<Beer> firstBeers = (List<Beer>) firstModel.getAttribute("beers");
+        String nextCursor = (String) firstModel.getAttribute("nextCursor");
+
+        assertAll(
+            () -> assertEquals(BEERS_TEMPLATE, viewName),
+            () -> assertEquals(true, firstModel.getAttribute("keyset")),
+            () -> assertEquals(25, firstBeers.size()),
+            () -> assertNotNull(nextCursor),
+            () -> assertNull(firstModel.getAttribute("totalItems"))
+        );
+
+        Model secondModel = new ExtendedModelMap();
+        listBeers(secondModel, 0, 25, nextCursor);
+        List<Beer> secondBeers = (List<Beer>) secondModel.getAttribute("beers");
+
+        List<String> names = new ArrayList<>(firstBeers.stream().map(Beer::getBeerName).toList());
+        names.addAll(secondBeers.stream().map(Beer::getBeerName).toList());
+        assertAll(
+            () -> assertEquals(beerRepository.count(), names.size()),
+            () -> assertEquals(names.stream().sorted().toList(), names),
+            () -> assertNull(secondModel.getAttribute("nextCursor"))
+        );
+    }
+
     @Test
     @Order(99)
-    void testDeleteBeer() {
+    void testDeleteBeer() throws IOException {
         // First, get a list of beers to obtain a valid ID
         Model listModel = new ExtendedModelMap();
-        controller.listBeers(listModel, 0, 25);
-        List<Beer> beers = (List<Beer>) listModel.getAttribute("beers");
+        listBeers(listModel, 0, 25, null);
+        List<BeerSummary> beers = (List<BeerSummary>) listModel.getAttribute("beers");
 
         // Get the ID of the first beer
         UUID beerIdToDelete = beers.getFirst().getId();
@@ -174,4 +213,8 @@ class BeerWebControllerTest {
         Optional<Beer> beer = beerRepository.findById(beerIdToDelete);
         assertFalse(beer.isPresent());
     }
+
+    private String listBeers(Model model, int page, int size, String cursor) throws IOException {
+        return controller.listBeers(model, page, size, cursor, new MockHttpServletRequest(servletContext), new MockHttpServletResponse());
+    }
 }
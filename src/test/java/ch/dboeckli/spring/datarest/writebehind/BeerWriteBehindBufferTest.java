@@ -0,0 +1,70 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "beer.write-behind.enabled=true",
+    "beer.write-behind.directory=target/write-behind-test",
+    "beer.write-behind.flush-interval=1h"
+})
+@DirtiesContext
+class BeerWriteBehindBufferTest {
+
+    @Autowired
+    BeerWriteBehindBuffer beerWriteBehindBuffer;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testBufferedUpdatesAreMergedAndFlushedOnce() {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_2_UPC);
+        UUID id = beer.getId();
+        long version = beerRepository.findVersionById(id).orElseThrow();
+
+        assertTrue(beerWriteBehindBuffer.submit(new BeerPendingUpdate(id, new BigDecimal("1.11"), null)));
+        assertTrue(beerWriteBehindBuffer.submit(new BeerPendingUpdate(id, new BigDecimal("2.22"), 99)));
+        assertTrue(beerWriteBehindBuffer.submit(new BeerPendingUpdate(id, null, 100)));
+
+        Beer merged = beerRepository.findById(id).orElseThrow();
+        assertAll(
+            () -> assertEquals(0, new BigDecimal("2.22").compareTo(merged.getPrice())),
+            () -> assertEquals(100, merged.getQuantityOnHand()),
+            () -> assertEquals(version + 1, merged.getVersion()),
+            () -> assertEquals(version + 1, beerRepository.findVersionById(id).orElseThrow())
+        );
+
+        assertEquals(1, beerWriteBehindBuffer.flush());
+
+        assertNull(beerWriteBehindBuffer.pending(id));
+        Beer flushed = beerRepository.findById(id).orElseThrow();
+        assertAll(
+            () -> assertEquals(0, new BigDecimal("2.22").compareTo(flushed.getPrice())),
+            () -> assertEquals(100, flushed.getQuantityOnHand()),
+            () -> assertEquals(version + 1, flushed.getVersion())
+        );
+    }
+
+    @Test
+    void testUpdateOfDeletedBeerIsDropped() {
+        assertTrue(beerWriteBehindBuffer.submit(new BeerPendingUpdate(UUID.randomUUID(), BigDecimal.ONE, null)));
+
+        assertEquals(0, beerWriteBehindBuffer.flush());
+        assertEquals(0, meterRegistry.get("beer.write-behind.log.updates").gauge().value());
+    }
+}
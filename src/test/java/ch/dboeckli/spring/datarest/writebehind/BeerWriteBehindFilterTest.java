@@ -0,0 +1,145 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import ch.dboeckli.spring.datarest.bootstrap.BeerLoader;
+import ch.dboeckli.spring.datarest.entity.Beer;
+import ch.dboeckli.spring.datarest.repository.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The log holds two updates, a third beer patched before a flush is written directly.
+ */
+@SpringBootTest(properties = {
+    "beer.write-behind.enabled=true",
+    "beer.write-behind.directory=target/write-behind-filter-test",
+    "beer.write-behind.flush-interval=1h",
+    "beer.write-behind.log-size=114B"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class BeerWriteBehindFilterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerWriteBehindBuffer beerWriteBehindBuffer;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void flushBufferedUpdates() {
+        beerWriteBehindBuffer.flush();
+    }
+
+    @Test
+    void testPriceAndQuantityPatchIsAcceptedAndShownOnRead() throws Exception {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_3_UPC);
+
+        patchBeer(beer.getId(), "{\"price\": 9.99, \"quantityOnHand\": 33}")
+            .andExpect(status().isAccepted());
+
+        assertAll(
+            () -> assertNotNull(beerWriteBehindBuffer.pending(beer.getId())),
+            () -> assertEquals(0, beer.getPrice().compareTo(storedPrice(beer.getId())))
+        );
+        mockMvc.perform(get("/api/v4/beer/{id}", beer.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (beer.getVersion() + 1) + "\""))
+            .andExpect(jsonPath("$.price").value(9.99))
+            .andExpect(jsonPath("$.quantityOnHand").value(33));
+    }
+
+    @Test
+    void testPatchOfOtherPropertiesIsWrittenDirectly() throws Exception {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_4_UPC);
+
+        patchBeer(beer.getId(), "{\"beerName\": \"Patched Directly\", \"price\": 8.88}")
+            .andExpect(status().is2xxSuccessful());
+
+        assertAll(
+            () -> assertNull(beerWriteBehindBuffer.pending(beer.getId())),
+            () -> assertEquals("Patched Directly", jdbcTemplate.queryForObject(
+                "select beer_name from beer where id = ?", String.class, beer.getId().toString())),
+            () -> assertEquals(0, new BigDecimal("8.88").compareTo(storedPrice(beer.getId())))
+        );
+    }
+
+    @Test
+    void testConditionalPatchIsWrittenDirectly() throws Exception {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_5_UPC);
+
+        mockMvc.perform(patch("/api/v4/beer/{id}", beer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"" + beer.getVersion() + "\"")
+                .content("{\"price\": 7.77}"))
+            .andExpect(status().is2xxSuccessful());
+
+        assertAll(
+            () -> assertNull(beerWriteBehindBuffer.pending(beer.getId())),
+            () -> assertEquals(0, new BigDecimal("7.77").compareTo(storedPrice(beer.getId())))
+        );
+    }
+
+    @Test
+    void testPatchIsWrittenDirectlyWhenTheLogIsFull() throws Exception {
+        Beer first = beerRepository.findByUpc(BeerLoader.BEER_6_UPC);
+        Beer second = beerRepository.findByUpc(BeerLoader.BEER_7_UPC);
+        Beer third = beerRepository.findByUpc(BeerLoader.BEER_8_UPC);
+
+        patchBeer(first.getId(), "{\"price\": 1.11}").andExpect(status().isAccepted());
+        patchBeer(second.getId(), "{\"price\": 2.22}").andExpect(status().isAccepted());
+        patchBeer(third.getId(), "{\"price\": 3.33}").andExpect(status().is2xxSuccessful());
+
+        assertAll(
+            () -> assertNull(beerWriteBehindBuffer.pending(third.getId())),
+            () -> assertEquals(0, new BigDecimal("3.33").compareTo(storedPrice(third.getId())))
+        );
+    }
+
+    @Test
+    void testOtherWriteOfTheBeerFlushesItsBufferedUpdate() throws Exception {
+        Beer beer = beerRepository.findByUpc(BeerLoader.BEER_9_UPC);
+        patchBeer(beer.getId(), "{\"price\": 6.66}").andExpect(status().isAccepted());
+
+        mockMvc.perform(post("/api/v4/beer/{beerId}/inventory", beer.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+            .andExpect(status().isOk());
+
+        assertAll(
+            () -> assertNull(beerWriteBehindBuffer.pending(beer.getId())),
+            () -> assertEquals(0, new BigDecimal("6.66").compareTo(storedPrice(beer.getId())))
+        );
+    }
+
+    private ResultActions patchBeer(UUID beerId, String body) throws Exception {
+        return mockMvc.perform(patch("/api/v4/beer/{id}", beerId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body));
+    }
+
+    private BigDecimal storedPrice(UUID beerId) {
+        return jdbcTemplate.queryForObject("select price from beer where id = ?", BigDecimal.class, beerId.toString());
+    }
+}
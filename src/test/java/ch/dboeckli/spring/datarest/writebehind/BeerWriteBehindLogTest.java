@@ -0,0 +1,84 @@
+package ch.dboeckli.spring.datarest.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeerWriteBehindLogTest {
+
+    private static final long SIZE = BeerWriteBehindLog.HEADER_SIZE + 4L * BeerWriteBehindLog.RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplaysAppendedUpdates() throws IOException {
+        BeerPendingUpdate price = new BeerPendingUpdate(UUID.randomUUID(), new BigDecimal("12.95"), null);
+        BeerPendingUpdate quantity = new BeerPendingUpdate(UUID.randomUUID(), null, 42);
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            assertEquals(List.of(), log.replay());
+            assertTrue(log.append(price));
+            assertTrue(log.append(quantity));
+        }
+
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            assertEquals(List.of(price, quantity), log.replay());
+        }
+    }
+
+    @Test
+    void testCheckpointReplacesLog() throws IOException {
+        BeerPendingUpdate flushed = new BeerPendingUpdate(UUID.randomUUID(), BigDecimal.ONE, 1);
+        BeerPendingUpdate pending = new BeerPendingUpdate(UUID.randomUUID(), BigDecimal.TEN, 10);
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            log.replay();
+            log.append(flushed);
+            log.append(pending);
+            assertTrue(log.checkpoint(List.of(pending)));
+            assertEquals(1, log.size());
+        }
+
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            assertEquals(List.of(pending), log.replay());
+        }
+    }
+
+    @Test
+    void testFullLog() throws IOException {
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            log.replay();
+            for (int i = 0; i < 4; i++) {
+                assertTrue(log.append(new BeerPendingUpdate(UUID.randomUUID(), null, i)));
+            }
+            assertFalse(log.append(new BeerPendingUpdate(UUID.randomUUID(), null, 4)));
+            assertTrue(log.checkpoint(List.of()));
+            assertTrue(log.append(new BeerPendingUpdate(UUID.randomUUID(), null, 4)));
+        }
+    }
+
+    @Test
+    void testTornRecordEndsReplay() throws IOException {
+        BeerPendingUpdate complete = new BeerPendingUpdate(UUID.randomUUID(), new BigDecimal("3.50"), 7);
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            log.replay();
+            log.append(complete);
+            log.append(new BeerPendingUpdate(UUID.randomUUID(), new BigDecimal("4.50"), 8));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("beer-write-behind-0.log").toFile(), "rw")) {
+            file.seek(BeerWriteBehindLog.HEADER_SIZE + BeerWriteBehindLog.RECORD_SIZE + 30L);
+            file.write(0x7f);
+        }
+
+        try (BeerWriteBehindLog log = new BeerWriteBehindLog(directory, SIZE, false)) {
+            assertEquals(List.of(complete), log.replay());
+        }
+    }
+}